@@ -0,0 +1,146 @@
+package ca.bc.gov.nrs.api.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A user's address lookup and the cascade when a user is deleted, against a heap {@code user_addresses} table and the
+ * hash-partitioned one from V1.0.5, at growing table sizes. Needs a PostgreSQL reachable through
+ * {@code -Dbenchmark.jdbc.url} (with {@code .user} and {@code .password}); defaults match docker-compose.
+ * <p>
+ * Each size and layout is seeded once into its own schema ({@code address_benchmark_<layout>_<rows>}) and reused by
+ * later runs; drop the schema to reseed. Only 1M rows are seeded unless larger sizes are asked for with
+ * {@code -p rows=...}: 100M rows take tens of GB and a long first run. Deletes are rolled back so every invocation
+ * cascades over the same {@value #ADDRESSES_PER_USER} addresses. The default {@code jmh.args} exclude this benchmark.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@State(Scope.Benchmark)
+public class AddressPartitioningBenchmark {
+
+  private static final int ADDRESSES_PER_USER = 5;
+
+  @Param({"1000000"})
+  long rows;
+
+  @Param({"heap", "hash"})
+  String layout;
+
+  @Param({"16"})
+  int partitions;
+
+  private Connection connection;
+  private PreparedStatement findAddresses;
+  private PreparedStatement deleteUser;
+  private long users;
+
+  @Setup
+  public void setup() throws SQLException {
+    connection = DriverManager.getConnection(
+      System.getProperty("benchmark.jdbc.url", "jdbc:postgresql://localhost:5432/postgres"),
+      System.getProperty("benchmark.jdbc.user", "postgres"),
+      System.getProperty("benchmark.jdbc.password", "default"));
+    users = rows / ADDRESSES_PER_USER;
+    String schema = "address_benchmark_" + layout + "_" + rows;
+    seed(schema);
+    findAddresses = connection.prepareStatement("select id, street, city, state, zip_code, user_id, version from "
+      + schema + ".user_addresses where user_id = ? order by id");
+    deleteUser = connection.prepareStatement("delete from " + schema + ".users where id = ?");
+  }
+
+  @TearDown
+  public void tearDown() throws SQLException {
+    connection.close();
+  }
+
+  @Benchmark
+  public void findAddressesByUser(Blackhole blackhole) throws SQLException {
+    findAddresses.setLong(1, randomUserId());
+    try (ResultSet addresses = findAddresses.executeQuery()) {
+      while (addresses.next()) {
+        blackhole.consume(addresses.getLong(1));
+        blackhole.consume(addresses.getString(2));
+      }
+    }
+  }
+
+  @Benchmark
+  public int deleteUserWithAddresses() throws SQLException {
+    connection.setAutoCommit(false);
+    try {
+      deleteUser.setLong(1, randomUserId());
+      return deleteUser.executeUpdate();
+    } finally {
+      connection.rollback();
+      connection.setAutoCommit(true);
+    }
+  }
+
+  private long randomUserId() {
+    return ThreadLocalRandom.current().nextLong(1, users + 1);
+  }
+
+  /**
+   * Mirrors the migrated schema: the same columns and keys, the foreign key cascade and the user_id index. Rows are
+   * generated server side and indexes built after loading.
+   */
+  private void seed(String schema) throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      try (ResultSet existing = statement.executeQuery(
+        "select 1 from information_schema.schemata where schema_name = '" + schema + "'")) {
+        if (existing.next()) {
+          return;
+        }
+      }
+      connection.setAutoCommit(false);
+      statement.execute("create schema " + schema);
+      statement.execute("create table " + schema + ".users (id integer primary key, name varchar(50) not null,"
+        + " email varchar(50) not null unique, version bigint not null default 0)");
+      statement.execute("create table " + schema + ".user_addresses (id integer not null, street varchar(50) not null,"
+        + " city varchar(50) not null, state varchar(50) not null, zip_code varchar(10) not null,"
+        + " user_id integer not null, version bigint not null default 0)"
+        + ("hash".equals(layout) ? " partition by hash (user_id)" : ""));
+      if ("hash".equals(layout)) {
+        for (int remainder = 0; remainder < partitions; remainder++) {
+          statement.execute("create table " + schema + ".user_addresses_p" + remainder + " partition of " + schema
+            + ".user_addresses for values with (modulus " + partitions + ", remainder " + remainder + ")");
+        }
+      }
+      statement.execute("insert into " + schema + ".users (id, name, email)"
+        + " select g, 'User Number ' || g, 'user.number.' || g || '@example.com' from generate_series(1, " + users + ") g");
+      statement.execute("insert into " + schema + ".user_addresses (id, street, city, state, zip_code, user_id)"
+        + " select g, g || ' Government Street', 'Victoria', 'BC', 'V8W 1P6', (g - 1) / " + ADDRESSES_PER_USER + " + 1"
+        + " from generate_series(1, " + users * ADDRESSES_PER_USER + ") g");
+      statement.execute("alter table " + schema + ".user_addresses add primary key "
+        + ("hash".equals(layout) ? "(id, user_id)" : "(id)"));
+      statement.execute("alter table " + schema + ".user_addresses add foreign key (user_id) references "
+        + schema + ".users (id) on delete cascade");
+      statement.execute("create index on " + schema + ".user_addresses (user_id)");
+      connection.commit();
+      connection.setAutoCommit(true);
+      statement.execute("vacuum analyze " + schema + ".users");
+      statement.execute("vacuum analyze " + schema + ".user_addresses");
+    }
+  }
+}
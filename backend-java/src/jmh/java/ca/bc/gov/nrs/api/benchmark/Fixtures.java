@@ -0,0 +1,56 @@
+package ca.bc.gov.nrs.api.benchmark;
+
+import ca.bc.gov.nrs.api.v1.entity.UserAddressEntity;
+import ca.bc.gov.nrs.api.v1.entity.UserEntity;
+import ca.bc.gov.nrs.api.v1.structs.User;
+import ca.bc.gov.nrs.api.v1.structs.UserAddress;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic users and addresses shaped like real rows, so runs are comparable.
+ */
+final class Fixtures {
+
+  private Fixtures() {
+  }
+
+  static List<UserEntity> userEntities(int size) {
+    List<UserEntity> users = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      UserEntity user = new UserEntity();
+      user.setId((long) i + 1);
+      user.setName("User Number " + i);
+      user.setEmail("user.number." + i + "@example.com");
+      user.setVersion((long) i % 5);
+      users.add(user);
+    }
+    return users;
+  }
+
+  static List<UserAddressEntity> userAddressEntities(int size) {
+    UserEntity user = userEntities(1).getFirst();
+    List<UserAddressEntity> addresses = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      UserAddressEntity address = new UserAddressEntity();
+      address.setId((long) i + 1);
+      address.setStreet(i + " Government Street");
+      address.setCity("Victoria");
+      address.setState("BC");
+      address.setZipCode("V8W 1P6");
+      address.setUser(user);
+      address.setVersion((long) i % 5);
+      addresses.add(address);
+    }
+    return addresses;
+  }
+
+  static List<User> users(int size) {
+    return userEntities(size).stream().map(User::toUserRecord).toList();
+  }
+
+  static List<UserAddress> userAddresses(int size) {
+    return userAddressEntities(size).stream().map(UserAddress::toUserAddressRecord).toList();
+  }
+}
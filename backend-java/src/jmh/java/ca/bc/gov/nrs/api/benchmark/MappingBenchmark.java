@@ -0,0 +1,60 @@
+package ca.bc.gov.nrs.api.benchmark;
+
+import ca.bc.gov.nrs.api.v1.entity.UserAddressEntity;
+import ca.bc.gov.nrs.api.v1.entity.UserEntity;
+import ca.bc.gov.nrs.api.v1.structs.User;
+import ca.bc.gov.nrs.api.v1.structs.UserAddress;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity/record mapping over a whole list, the way the list endpoints call it. Entities here are not bytecode
+ * enhanced by Hibernate, so absolute numbers are a lower bound of what runs inside Quarkus.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class MappingBenchmark {
+
+  @Param({"10", "100", "1000", "10000", "100000"})
+  int size;
+
+  private List<UserEntity> userEntities;
+  private List<User> users;
+  private List<UserAddressEntity> userAddressEntities;
+
+  @Setup
+  public void setup() {
+    userEntities = Fixtures.userEntities(size);
+    users = Fixtures.users(size);
+    userAddressEntities = Fixtures.userAddressEntities(size);
+  }
+
+  @Benchmark
+  public List<User> toUserRecord() {
+    return userEntities.stream().map(User::toUserRecord).toList();
+  }
+
+  @Benchmark
+  public List<UserEntity> toUserEntity() {
+    return users.stream().map(User::toUserEntity).toList();
+  }
+
+  @Benchmark
+  public List<UserAddress> toUserAddressRecord() {
+    return userAddressEntities.stream().map(UserAddress::toUserAddressRecord).toList();
+  }
+}
@@ -0,0 +1,60 @@
+package ca.bc.gov.nrs.api.benchmark;
+
+import ca.bc.gov.nrs.api.v1.structs.User;
+import ca.bc.gov.nrs.api.v1.structs.UserAddress;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of list responses, with writers resolved once as Quarkus REST does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+  @Param({"10", "100", "1000", "10000", "100000"})
+  int size;
+
+  private List<User> users;
+  private List<UserAddress> userAddresses;
+  private ObjectWriter usersWriter;
+  private ObjectWriter userAddressesWriter;
+
+  @Setup
+  public void setup() {
+    users = Fixtures.users(size);
+    userAddresses = Fixtures.userAddresses(size);
+    ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    usersWriter = objectMapper.writerFor(new TypeReference<List<User>>() {
+    });
+    userAddressesWriter = objectMapper.writerFor(new TypeReference<List<UserAddress>>() {
+    });
+  }
+
+  @Benchmark
+  public byte[] serializeUsers() throws Exception {
+    return usersWriter.writeValueAsBytes(users);
+  }
+
+  @Benchmark
+  public byte[] serializeUserAddresses() throws Exception {
+    return userAddressesWriter.writeValueAsBytes(userAddresses);
+  }
+}
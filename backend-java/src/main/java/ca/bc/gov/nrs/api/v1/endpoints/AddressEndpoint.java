@@ -0,0 +1,51 @@
+package ca.bc.gov.nrs.api.v1.endpoints;
+
+import ca.bc.gov.nrs.api.v1.service.UserService;
+import ca.bc.gov.nrs.api.v1.structs.UserAddress;
+import ca.bc.gov.nrs.api.v1.tracing.Traced;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import io.smallrye.faulttolerance.api.ApplyGuard;
+import jakarta.inject.Inject;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+
+import java.util.List;
+
+@Path("/api/v1/addresses")
+@Produces("application/json")
+@Traced
+@RunOnVirtualThread
+@ApplyGuard(DatabaseGuard.NAME)
+@Tag(name = "Address", description = "Address search across users")
+public class AddressEndpoint {
+
+  private final UserService userService;
+
+  @Inject
+  public AddressEndpoint(UserService userService) {
+    this.userService = userService;
+  }
+
+  @GET
+  @Produces({"application/json", CborMessageBodyWriter.MEDIA_TYPE})
+  @Operation(summary = "Search addresses", description = "Returns a page of addresses ordered by ID, matching every given filter exactly")
+  @APIResponse(responseCode = "200", description = "Page of addresses, with a next link when more addresses may follow")
+  public Response searchAddresses(@QueryParam("city") @Parameter(description = "City") @Size(max = 50) String city,
+                                  @QueryParam("state") @Parameter(description = "State or province") @Size(max = 50) String state,
+                                  @QueryParam("zipCode") @Parameter(description = "ZIP or postal code") @Size(max = 10) String zipCode,
+                                  @QueryParam("after") @Min(0) Long after,
+                                  @QueryParam("limit") @DefaultValue(Pages.DEFAULT_SIZE) @Min(1) @Max(Pages.MAX_SIZE) int limit,
+                                  @Context UriInfo uriInfo) {
+    List<UserAddress> addresses = userService.findAddressPage(after == null ? 0 : after, limit, city, state, zipCode);
+    return Pages.page(addresses, limit, uriInfo, UserAddress::id);
+  }
+}
@@ -0,0 +1,59 @@
+package ca.bc.gov.nrs.api.v1.endpoints;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Variant;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Writes responses as CBOR for clients that ask for {@value #MEDIA_TYPE}: the same fields as the JSON body, with the
+ * application's Jackson configuration, but binary-encoded so bulk consumers spend less on bandwidth and parsing.
+ */
+@Provider
+@Produces(CborMessageBodyWriter.MEDIA_TYPE)
+public class CborMessageBodyWriter implements MessageBodyWriter<Object> {
+
+  static final String MEDIA_TYPE = "application/cbor";
+  static final MediaType MEDIA_TYPE_TYPE = MediaType.valueOf(MEDIA_TYPE);
+  private static final List<Variant> JSON_OR_CBOR = Variant.mediaTypes(MediaType.APPLICATION_JSON_TYPE, MEDIA_TYPE_TYPE).build();
+
+  private final ObjectWriter writer;
+
+  @Inject
+  public CborMessageBodyWriter(ObjectMapper objectMapper) {
+    this.writer = objectMapper.copyWith(new CBORFactory()).writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+  }
+
+  /**
+   * The representation a JSON-or-CBOR resource sends for the request's Accept header; JSON when either would do.
+   */
+  static MediaType select(Request request) {
+    Variant variant = request.selectVariant(JSON_OR_CBOR);
+    return variant == null ? MediaType.APPLICATION_JSON_TYPE : variant.getMediaType();
+  }
+
+  @Override
+  public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+    return true;
+  }
+
+  @Override
+  public void writeTo(Object entity, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                      MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+    writer.writeValue(entityStream, entity);
+  }
+}
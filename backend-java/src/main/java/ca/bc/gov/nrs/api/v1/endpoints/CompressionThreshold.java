@@ -0,0 +1,31 @@
+package ca.bc.gov.nrs.api.v1.endpoints;
+
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.ext.web.Router;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Leaves responses smaller than {@code api.http.compression-threshold} bytes uncompressed, where gzip or Brotli would
+ * cost more CPU than the bytes they save. Streamed responses have no length up front and are always compressed.
+ */
+@ApplicationScoped
+class CompressionThreshold {
+
+  private static final String IDENTITY = "identity";
+
+  void register(@Observes Router router,
+                @ConfigProperty(name = "api.http.compression-threshold", defaultValue = "1024") long threshold) {
+    // Registered before every other route, so this headers-end handler runs after the one that enables compression
+    router.route().order(Integer.MIN_VALUE).handler(context -> {
+      context.addHeadersEndHandler(ignored -> {
+        String contentLength = context.response().headers().get(HttpHeaders.CONTENT_LENGTH);
+        if (contentLength != null && Long.parseLong(contentLength) < threshold) {
+          context.response().putHeader(HttpHeaders.CONTENT_ENCODING, IDENTITY);
+        }
+      });
+      context.next();
+    });
+  }
+}
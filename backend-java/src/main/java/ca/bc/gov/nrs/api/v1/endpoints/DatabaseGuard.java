@@ -0,0 +1,44 @@
+package ca.bc.gov.nrs.api.v1.endpoints;
+
+import io.smallrye.common.annotation.Identifier;
+import io.smallrye.faulttolerance.api.Guard;
+import io.smallrye.faulttolerance.api.RateLimitType;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Produces;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.OptionalInt;
+
+/**
+ * One rate limit and one bulkhead shared by every guarded endpoint method, so the request rate and the number of
+ * requests holding or waiting for a database connection stay bounded no matter how many virtual threads the HTTP layer
+ * starts. Rejections surface as 429 and 503 through {@link LoadShedding}. Streams and exports write their bodies after
+ * the guarded method has returned, so {@link UserEndpoint} bounds them with permits of its own.
+ * <p>
+ * Unless {@code api.users.max-concurrent-requests} is set, the bulkhead admits one request per primary connection plus
+ * the {@code api.users.max-pool-waiters} allowed to queue for one, so it follows the pool when the pool is resized.
+ */
+@ApplicationScoped
+class DatabaseGuard {
+
+  static final String NAME = "user-database";
+
+  @Produces
+  @ApplicationScoped
+  @Identifier(NAME)
+  Guard guard(@ConfigProperty(name = "api.users.max-concurrent-requests") OptionalInt maxConcurrentRequests,
+              @ConfigProperty(name = "quarkus.datasource.jdbc.max-size", defaultValue = "20") int poolSize,
+              @ConfigProperty(name = "api.users.max-pool-waiters", defaultValue = "4") int maxPoolWaiters,
+              @ConfigProperty(name = "api.users.rate-limit", defaultValue = "500") int rateLimit,
+              @ConfigProperty(name = "api.users.rate-limit-window", defaultValue = "1S") Duration rateLimitWindow,
+              LoadShedding loadShedding) {
+    return Guard.create()
+      .withDescription(NAME)
+      .withRateLimit().limit(rateLimit).window(rateLimitWindow.toMillis(), ChronoUnit.MILLIS).type(RateLimitType.SMOOTH)
+      .onRejected(() -> loadShedding.shed(LoadShedding.RATE_LIMIT)).done()
+      .withBulkhead().limit(maxConcurrentRequests.orElse(poolSize + maxPoolWaiters)).onRejected(() -> loadShedding.shed(LoadShedding.BULKHEAD)).done()
+      .build();
+  }
+}
@@ -0,0 +1,95 @@
+package ca.bc.gov.nrs.api.v1.endpoints;
+
+import ca.bc.gov.nrs.api.v1.structs.UserAddress;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.MediaType;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Strong entity tags derived from the optimistic locking version of users and addresses.
+ */
+final class EntityTags {
+
+  private static final String ANY = "*";
+  private static final long NEVER_MATCHES = -1L;
+  private static final String CBOR_SUFFIX = "-cbor";
+
+  private EntityTags() {
+  }
+
+  static EntityTag of(Long version) {
+    return new EntityTag(String.valueOf(version));
+  }
+
+  /**
+   * Tag for a list of addresses: changes whenever an address is added, removed or updated.
+   */
+  static EntityTag of(List<UserAddress> addresses) {
+    return digest("", addresses);
+  }
+
+  /**
+   * The same tag for the representation actually sent: CBOR and JSON bodies differ byte for byte, so their strong tags
+   * must differ too. JSON keeps the plain tag.
+   */
+  static EntityTag of(List<UserAddress> addresses, MediaType mediaType) {
+    EntityTag tag = of(addresses);
+    return CborMessageBodyWriter.MEDIA_TYPE_TYPE.isCompatible(mediaType) ? new EntityTag(tag.getValue() + CBOR_SUFFIX) : tag;
+  }
+
+  /**
+   * Tag for a user with its addresses expanded: changes with the user or any of its addresses.
+   */
+  static EntityTag of(Long version, List<UserAddress> addresses) {
+    return digest("user:" + version + ";", addresses);
+  }
+
+  private static EntityTag digest(String prefix, List<UserAddress> addresses) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(prefix.getBytes(StandardCharsets.US_ASCII));
+      for (UserAddress address : addresses) {
+        digest.update((address.id() + ":" + address.version() + ";").getBytes(StandardCharsets.US_ASCII));
+      }
+      return new EntityTag(HexFormat.of().formatHex(digest.digest(), 0, 16));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  /**
+   * Whether an If-Match header accepts {@code current}; a missing header or "*" accepts any tag. The tag of either
+   * representation matches, since a write replaces the resource rather than one of its representations.
+   */
+  static boolean matches(String ifMatch, EntityTag current) {
+    if (ifMatch == null || ifMatch.isBlank() || ANY.equals(ifMatch.strip())) {
+      return true;
+    }
+    String tag = ifMatch.strip();
+    return tag.equals("\"" + current.getValue() + "\"") || tag.equals("\"" + current.getValue() + CBOR_SUFFIX + "\"");
+  }
+
+  /**
+   * The version a client expects from its If-Match header, or null when it sent none (or "*"). Tags that were not
+   * issued by this API never match.
+   */
+  static Long expectedVersion(String ifMatch) {
+    if (ifMatch == null || ifMatch.isBlank() || ANY.equals(ifMatch.strip())) {
+      return null;
+    }
+    String tag = ifMatch.strip();
+    if (tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+      return NEVER_MATCHES;
+    }
+    try {
+      return Long.parseLong(tag.substring(1, tag.length() - 1));
+    } catch (NumberFormatException e) {
+      return NEVER_MATCHES;
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package ca.bc.gov.nrs.api.v1.endpoints;
+
+import jakarta.ws.rs.BadRequestException;
+
+import java.util.List;
+
+/**
+ * Parses the {@code expand} query parameter, given repeated ({@code expand=a&expand=b}) or comma separated.
+ */
+final class Expansions {
+
+  static final String ADDRESSES = "addresses";
+
+  private Expansions() {
+  }
+
+  static boolean addresses(List<String> expand) {
+    if (expand == null) {
+      return false;
+    }
+    boolean addresses = false;
+    for (String value : expand) {
+      for (String expansion : value.split(",")) {
+        if (ADDRESSES.equals(expansion.strip())) {
+          addresses = true;
+        } else if (!expansion.isBlank()) {
+          throw new BadRequestException("Cannot expand " + expansion.strip());
+        }
+      }
+    }
+    return addresses;
+  }
+}
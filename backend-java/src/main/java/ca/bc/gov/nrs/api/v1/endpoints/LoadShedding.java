@@ -0,0 +1,101 @@
+package ca.bc.gov.nrs.api.v1.endpoints;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.agroal.api.AgroalDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.smallrye.faulttolerance.api.RateLimitException;
+import io.vertx.core.http.HttpServerRequest;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.faulttolerance.exceptions.BulkheadException;
+import org.jboss.resteasy.reactive.server.ServerExceptionMapper;
+import org.jboss.resteasy.reactive.server.ServerRequestFilter;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rejects {@code /api/v1/users} requests before they reach the connection pool: with 429 when one client exceeds
+ * {@code api.users.client-rate-limit} requests per window, and with 503 when more than
+ * {@code api.users.max-pool-waiters} threads are already queued for a connection. {@link DatabaseGuard} adds the global
+ * rate limit and the in-flight bulkhead behind it. Every rejection is counted in {@code api.http.shed} by reason.
+ * <p>
+ * Clients are told apart by remote address; behind a proxy, enable {@code quarkus.http.proxy.proxy-address-forwarding}.
+ */
+@ApplicationScoped
+public class LoadShedding {
+
+  static final String SHED_REQUESTS = "api.http.shed";
+  static final String CLIENT_RATE_LIMIT = "client-rate-limit";
+  static final String RATE_LIMIT = "rate-limit";
+  static final String POOL_WAITERS = "pool-waiters";
+  static final String BULKHEAD = "bulkhead";
+  static final String STREAMS = "streams";
+  static final String EXPORTS = "exports";
+  private static final String USERS_PATH = "/api/v1/users";
+  static final String RETRY_AFTER_SECONDS = "1";
+
+  private final MeterRegistry registry;
+  private final AgroalDataSource dataSource;
+  private final int clientRateLimit;
+  private final long windowSeconds;
+  private final int maxPoolWaiters;
+  private final Cache<String, AtomicInteger> clientRequests;
+
+  @Inject
+  public LoadShedding(MeterRegistry registry, AgroalDataSource dataSource,
+                      @ConfigProperty(name = "api.users.client-rate-limit", defaultValue = "50") int clientRateLimit,
+                      @ConfigProperty(name = "api.users.rate-limit-window", defaultValue = "1S") Duration window,
+                      @ConfigProperty(name = "api.users.max-pool-waiters", defaultValue = "4") int maxPoolWaiters) {
+    this.registry = registry;
+    this.dataSource = dataSource;
+    this.clientRateLimit = clientRateLimit;
+    this.windowSeconds = Math.max(1, window.toSeconds());
+    this.maxPoolWaiters = maxPoolWaiters;
+    // A client's count starts with its first request in a window and is dropped when the window ends
+    this.clientRequests = Caffeine.newBuilder().expireAfterWrite(window).maximumSize(100_000).build();
+  }
+
+  @ServerRequestFilter
+  public Response shed(HttpServerRequest httpRequest) {
+    if (!httpRequest.path().startsWith(USERS_PATH)) {
+      return null;
+    }
+    String client = httpRequest.remoteAddress() == null ? "unknown" : httpRequest.remoteAddress().hostAddress();
+    if (clientRequests.get(client, key -> new AtomicInteger()).incrementAndGet() > clientRateLimit) {
+      shed(CLIENT_RATE_LIMIT);
+      return Response.status(Response.Status.TOO_MANY_REQUESTS)
+        .header(HttpHeaders.RETRY_AFTER, Long.toString(windowSeconds)).build();
+    }
+    if (dataSource.getMetrics().awaitingCount() > maxPoolWaiters) {
+      shed(POOL_WAITERS);
+      return Response.status(Response.Status.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS).build();
+    }
+    return null;
+  }
+
+  @ServerExceptionMapper
+  public Response mapRateLimitException(RateLimitException e) {
+    long retryAfterSeconds = Math.max(1, (e.getRetryAfterMillis() + 999) / 1000);
+    return Response.status(Response.Status.TOO_MANY_REQUESTS)
+      .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds)).build();
+  }
+
+  @ServerExceptionMapper
+  public Response mapBulkheadException(BulkheadException e) {
+    return Response.status(Response.Status.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS).build();
+  }
+
+  void shed(String reason) {
+    Counter.builder(SHED_REQUESTS)
+      .description("Requests rejected before reaching the database")
+      .tag("reason", reason)
+      .register(registry)
+      .increment();
+  }
+}
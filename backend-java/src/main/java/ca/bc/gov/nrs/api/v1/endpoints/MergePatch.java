@@ -0,0 +1,57 @@
+package ca.bc.gov.nrs.api.v1.endpoints;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.ws.rs.BadRequestException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * JSON Merge Patch (RFC 7386) for flat records whose patchable fields are all required strings: each member replaces
+ * one field, and removing a field ({@code null}) is rejected.
+ */
+final class MergePatch {
+
+  static final String MEDIA_TYPE = "application/merge-patch+json";
+
+  private MergePatch() {
+  }
+
+  /**
+   * The patched fields and their new values, each validated against the constraints declared on {@code type}.
+   */
+  static <T> Map<String, String> changes(ObjectMapper objectMapper, String body, Class<T> type, Set<String> fields,
+                                         Validator validator) {
+    JsonNode patch;
+    try {
+      patch = objectMapper.readTree(body);
+    } catch (JsonProcessingException e) {
+      throw new BadRequestException("Payload is not valid JSON", e);
+    }
+    if (patch == null || !patch.isObject()) {
+      throw new BadRequestException("Merge patch must be a JSON object");
+    }
+    Map<String, String> changes = new LinkedHashMap<>();
+    for (Map.Entry<String, JsonNode> member : patch.properties()) {
+      String field = member.getKey();
+      if (!fields.contains(field)) {
+        throw new BadRequestException(field + " cannot be patched");
+      }
+      if (!member.getValue().isTextual()) {
+        throw new BadRequestException(field + " must be a string");
+      }
+      String value = member.getValue().textValue();
+      Set<ConstraintViolation<T>> violations = validator.validateValue(type, field, value);
+      if (!violations.isEmpty()) {
+        throw new BadRequestException(violations.iterator().next().getMessage());
+      }
+      changes.put(field, value);
+    }
+    return changes;
+  }
+}
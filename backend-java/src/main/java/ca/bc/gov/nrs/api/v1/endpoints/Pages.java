@@ -0,0 +1,32 @@
+package ca.bc.gov.nrs.api.v1.endpoints;
+
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Keyset pagination shared by the list endpoints: a full page carries a {@code next} link that resumes after its last
+ * ID and keeps every other query parameter.
+ */
+final class Pages {
+
+  static final String DEFAULT_SIZE = "100";
+  static final int MAX_SIZE = 1000;
+
+  private Pages() {
+  }
+
+  /**
+   * The list endpoints answer JSON or CBOR by Accept header, so shared caches are told the body varies with it.
+   */
+  static <T> Response page(List<T> items, int limit, UriInfo uriInfo, Function<T, Long> id) {
+    Response.ResponseBuilder response = Response.ok(items).header(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+    if (items.size() == limit) {
+      response.link(uriInfo.getRequestUriBuilder().replaceQueryParam("after", id.apply(items.getLast())).build(), "next");
+    }
+    return response.build();
+  }
+}
@@ -0,0 +1,343 @@
+package ca.bc.gov.nrs.api.v1.endpoints;
+
+import ca.bc.gov.nrs.api.v1.service.InvalidAddressesException;
+import ca.bc.gov.nrs.api.v1.service.ReactiveUserService;
+import ca.bc.gov.nrs.api.v1.structs.User;
+import ca.bc.gov.nrs.api.v1.structs.UserAddress;
+import ca.bc.gov.nrs.api.v1.structs.UserBatch;
+import ca.bc.gov.nrs.api.v1.structs.UserLookup;
+import ca.bc.gov.nrs.api.v1.structs.UserWithAddresses;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.arc.profile.IfBuildProfile;
+import io.smallrye.mutiny.Uni;
+import jakarta.inject.Inject;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
+import org.eclipse.microprofile.openapi.annotations.parameters.RequestBody;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+import org.jboss.resteasy.reactive.server.ServerExceptionMapper;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Non-blocking implementation of the {@link UserEndpoint} contract, served on the event loop by the reactive
+ * PostgreSQL client. Only built with {@code -Dquarkus.profile=reactive}; the bulk import and streaming endpoints stay
+ * with the blocking implementation.
+ */
+@Path("/api/v1/users")
+@Produces("application/json")
+@Consumes("application/json")
+@IfBuildProfile("reactive")
+@Tag(name = "User", description = "User operations")
+public class ReactiveUserEndpoint {
+
+
+  private static final Set<String> USER_PATCH_FIELDS = Set.of("name", "email");
+  private static final Set<String> ADDRESS_PATCH_FIELDS = Set.of("street", "city", "state", "zipCode");
+
+  private final ReactiveUserService userService;
+  private final ObjectMapper objectMapper;
+  private final Validator validator;
+
+  @Inject
+  public ReactiveUserEndpoint(ReactiveUserService userService, ObjectMapper objectMapper, Validator validator) {
+    this.userService = userService;
+    this.objectMapper = objectMapper;
+    this.validator = validator;
+  }
+
+  @GET
+  @Produces({"application/json", CborMessageBodyWriter.MEDIA_TYPE})
+  @Operation(summary = "Get users", description = "Returns a page of users ordered by ID, starting after the given user ID and optionally filtered by email or name; or, given ids, those users and the IDs without one")
+  @APIResponse(responseCode = "200", description = "Page of users, with a next link when more users may follow; a UserBatch when ids are given")
+  public Uni<Response> getAllUsers(@QueryParam("after") @Min(0) Long after,
+                                   @QueryParam("limit") @DefaultValue(Pages.DEFAULT_SIZE) @Min(1) @Max(Pages.MAX_SIZE) int limit,
+                                   @QueryParam("email") @Parameter(description = "Exact email") @Size(max = 50) String email,
+                                   @QueryParam("emailPrefix") @Parameter(description = "Case-sensitive email prefix") @Size(max = 50) String emailPrefix,
+                                   @QueryParam("namePrefix") @Parameter(description = "Case-sensitive name prefix") @Size(max = 50) String namePrefix,
+                                   @QueryParam("ids") @Parameter(description = "User IDs to fetch instead of a page, comma separated or repeated; at most 1000") List<String> ids,
+                                   @QueryParam("expand") @Parameter(description = "Related resources to nest; only \"addresses\" is supported") List<String> expand,
+                                   @Context UriInfo uriInfo) {
+    if (UserIds.present(ids)) {
+      return batch(UserIds.parse(ids), expand)
+        .map(batch -> Response.ok(batch).header(HttpHeaders.VARY, HttpHeaders.ACCEPT).build());
+    }
+    Uni<List<User>> users = userService.findPage(after == null ? 0 : after, limit, email, emailPrefix, namePrefix);
+    if (Expansions.addresses(expand)) {
+      return users.flatMap(userService::withAddresses)
+        .map(expanded -> Pages.page(expanded, limit, uriInfo, UserWithAddresses::id));
+    }
+    return users.map(page -> Pages.page(page, limit, uriInfo, User::id));
+  }
+
+  @POST
+  @Path("/lookup")
+  @Operation(summary = "Get users by ID", description = "Returns the users with the given IDs and the IDs without one, for ID lists too long for a query string")
+  @APIResponse(responseCode = "200", description = "Users found, in the order their IDs were given, and the missing IDs")
+  @APIResponse(responseCode = "400", description = "No IDs, or more than 1000")
+  public Uni<UserBatch<?>> lookupUsers(@Valid @RequestBody(description = "IDs to fetch") UserLookup lookup,
+                                       @QueryParam("expand") @Parameter(description = "Related resources to nest; only \"addresses\" is supported") List<String> expand) {
+    return batch(UserIds.distinct(lookup.ids()), expand);
+  }
+
+  private Uni<UserBatch<?>> batch(List<Long> ids, List<String> expand) {
+    Uni<List<User>> users = userService.findByIds(ids);
+    if (Expansions.addresses(expand)) {
+      return users.flatMap(userService::withAddresses).map(expanded -> UserBatch.of(ids, expanded, UserWithAddresses::id));
+    }
+    return users.map(found -> UserBatch.of(ids, found, User::id));
+  }
+
+  @GET
+  @Path("/{id}")
+  @Operation(summary = "Get user by ID", description = "Returns a user by ID")
+  @APIResponse(responseCode = "200", description = "User found")
+  @APIResponse(responseCode = "304", description = "User matches the If-None-Match tag")
+  @APIResponse(responseCode = "404", description = "User not found")
+  public Uni<Response> getUserById(@PathParam("id") Long id,
+                                   @QueryParam("expand") @Parameter(description = "Related resources to nest; only \"addresses\" is supported") List<String> expand,
+                                   @Context Request request) {
+    if (Expansions.addresses(expand)) {
+      return userService.findUserById(id).flatMap(user -> {
+        if (user.isEmpty()) {
+          return Uni.createFrom().item(Response.status(Response.Status.NOT_FOUND).build());
+        }
+        return userService.findUserAddresses(id).map(addresses -> {
+          List<UserAddress> userAddresses = addresses.orElse(List.of());
+          return tagged(request, UserWithAddresses.of(user.get(), userAddresses),
+            EntityTags.of(user.get().version(), userAddresses));
+        });
+      });
+    }
+    return userService.findUserById(id).map(user -> {
+      if (user.isPresent()) {
+        return tagged(request, user.get(), EntityTags.of(user.get().version()));
+      } else {
+        return Response.status(Response.Status.NOT_FOUND).build();
+      }
+    });
+  }
+
+  @POST
+  @Operation(summary = "Create user", description = "Creates a new user")
+  @APIResponse(responseCode = "201", description = "User created")
+  public Uni<Response> createUser(@Valid User user) {
+    return userService.save(user)
+      .map(createdUser -> Response.status(Response.Status.CREATED).entity(createdUser).build());
+  }
+
+  @PUT
+  @Path("/{id}")
+  @Operation(summary = "Update user by ID", description = "Updates a user by ID")
+  @APIResponse(responseCode = "200", description = "User updated")
+  @APIResponse(responseCode = "404", description = "User not found")
+  @APIResponse(responseCode = "412", description = "User no longer matches the If-Match tag")
+  public Uni<Response> updateUser(@PathParam("id") Long id, User user, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+    return userService.update(id, user, EntityTags.expectedVersion(ifMatch)).map(updatedUser -> {
+      if (updatedUser.isPresent()) {
+        return Response.ok(updatedUser.get()).tag(EntityTags.of(updatedUser.get().version())).build();
+      } else {
+        return Response.status(Response.Status.NOT_FOUND).build();
+      }
+    });
+  }
+
+  @PATCH
+  @Path("/{id}")
+  @Consumes(MergePatch.MEDIA_TYPE)
+  @Operation(summary = "Patch user by ID", description = "Changes only the fields present in a JSON Merge Patch document")
+  @APIResponse(responseCode = "200", description = "User patched")
+  @APIResponse(responseCode = "400", description = "Patch is not a valid merge patch for a user")
+  @APIResponse(responseCode = "404", description = "User not found")
+  @APIResponse(responseCode = "412", description = "User no longer matches the If-Match tag")
+  public Uni<Response> patchUser(@PathParam("id") Long id, @RequestBody(description = "Fields to change") String patch,
+                                 @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+    Map<String, String> changes = MergePatch.changes(objectMapper, patch, User.class, USER_PATCH_FIELDS, validator);
+    return userService.patch(id, changes, EntityTags.expectedVersion(ifMatch)).map(patchedUser -> {
+      if (patchedUser.isPresent()) {
+        return Response.ok(patchedUser.get()).tag(EntityTags.of(patchedUser.get().version())).build();
+      } else {
+        return Response.status(Response.Status.NOT_FOUND).build();
+      }
+    });
+  }
+
+  @DELETE
+  @Path("/{id}")
+  @Operation(summary = "Delete user by ID", description = "Deletes a user by ID")
+  @APIResponse(responseCode = "204", description = "User deleted")
+  @APIResponse(responseCode = "404", description = "User not found")
+  @APIResponse(responseCode = "412", description = "User no longer matches the If-Match tag")
+  public Uni<Response> deleteUser(@PathParam("id") Long id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+    return userService.deleteById(id, EntityTags.expectedVersion(ifMatch)).map(ReactiveUserEndpoint::noContentOrNotFound);
+  }
+
+  @GET
+  @Path("/{id}/addresses")
+  @Produces({"application/json", CborMessageBodyWriter.MEDIA_TYPE})
+  @Operation(summary = "Get all addresses for user", description = "Returns a list of all addresses for a user")
+  @APIResponse(responseCode = "200", description = "List of addresses")
+  @APIResponse(responseCode = "304", description = "Addresses match the If-None-Match tag")
+  @APIResponse(responseCode = "404", description = "User not found")
+  public Uni<Response> getAllAddressesForUser(@PathParam("id") Long id, @Context Request request) {
+    return userService.findUserAddresses(id).map(addresses -> {
+      if (addresses.isPresent()) {
+        MediaType mediaType = CborMessageBodyWriter.select(request);
+        EntityTag tag = EntityTags.of(addresses.get(), mediaType);
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null) {
+          return notModified.header(HttpHeaders.VARY, HttpHeaders.ACCEPT).build();
+        }
+        return Response.ok(addresses.get(), mediaType).tag(tag).header(HttpHeaders.VARY, HttpHeaders.ACCEPT).build();
+      } else {
+        return Response.status(Response.Status.NOT_FOUND).build();
+      }
+    });
+  }
+
+  @GET
+  @Path("/{id}/addresses/{addressId}")
+  @Operation(summary = "Get address by ID for user", description = "Returns an address by ID for a user")
+  @APIResponse(responseCode = "200", description = "Address found")
+  @APIResponse(responseCode = "304", description = "Address matches the If-None-Match tag")
+  @APIResponse(responseCode = "404", description = "Address not found")
+  public Uni<Response> getAddressByIdForUser(@PathParam("id") Long id, @PathParam("addressId") Long addressId,
+                                            @Context Request request) {
+    return userService.findUserAddress(id, addressId).map(address -> {
+      if (address.isPresent()) {
+        return tagged(request, address.get(), EntityTags.of(address.get().version()));
+      } else {
+        return Response.status(Response.Status.NOT_FOUND).build();
+      }
+    });
+  }
+
+  @POST
+  @Path("/{id}/addresses")
+  @Operation(summary = "Create address for user", description = "Creates a new address for a user")
+  @APIResponse(responseCode = "201", description = "Address created")
+  @APIResponse(responseCode = "404", description = "User not found")
+  public Uni<Response> createAddressForUser(@PathParam("id") Long id,
+                                            @Valid @RequestBody(description = "Address to create") UserAddress address) {
+    return userService.saveUserAddress(id, address).map(createdAddress -> {
+      if (createdAddress.isPresent()) {
+        return Response.status(Response.Status.CREATED).entity(createdAddress.get())
+          .tag(EntityTags.of(createdAddress.get().version())).build();
+      } else {
+        return Response.status(Response.Status.NOT_FOUND).build();
+      }
+    });
+  }
+
+  @PUT
+  @Path("/{id}/addresses")
+  @Operation(summary = "Replace all addresses for user",
+    description = "Makes the given list the user's addresses: addresses with an ID are updated, those without one are created and any others are deleted")
+  @APIResponse(responseCode = "200", description = "Addresses replaced")
+  @APIResponse(responseCode = "400", description = "An ID is not one of the user's addresses or is repeated")
+  @APIResponse(responseCode = "404", description = "User not found")
+  @APIResponse(responseCode = "412", description = "Addresses no longer match the If-Match tag")
+  public Uni<Response> replaceAddressesForUser(@PathParam("id") Long id,
+                                               @NotNull @RequestBody(description = "The user's complete list of addresses") List<@NotNull @Valid UserAddress> addresses,
+                                               @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+    return userService.replaceUserAddresses(id, addresses, current -> EntityTags.matches(ifMatch, EntityTags.of(current)))
+      .map(replacedAddresses -> {
+        if (replacedAddresses.isPresent()) {
+          return Response.ok(replacedAddresses.get()).tag(EntityTags.of(replacedAddresses.get())).build();
+        } else {
+          return Response.status(Response.Status.NOT_FOUND).build();
+        }
+      });
+  }
+
+  @PUT
+  @Path("/{id}/addresses/{addressId}")
+  @Operation(summary = "Update address by ID for user", description = "Updates an address by ID for a user")
+  @APIResponse(responseCode = "200", description = "Address updated")
+  @APIResponse(responseCode = "404", description = "Address not found")
+  @APIResponse(responseCode = "412", description = "Address no longer matches the If-Match tag")
+  public Uni<Response> updateAddressByIdForUser(@PathParam("id") Long id, @PathParam("addressId") Long addressId,
+                                                @Valid @RequestBody(description = "Address to update") UserAddress address,
+                                                @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+    return userService.updateUserAddress(id, addressId, address, EntityTags.expectedVersion(ifMatch)).map(updatedAddress -> {
+      if (updatedAddress.isPresent()) {
+        return Response.ok(updatedAddress.get()).tag(EntityTags.of(updatedAddress.get().version())).build();
+      } else {
+        return Response.status(Response.Status.NOT_FOUND).build();
+      }
+    });
+  }
+
+  @PATCH
+  @Path("/{id}/addresses/{addressId}")
+  @Consumes(MergePatch.MEDIA_TYPE)
+  @Operation(summary = "Patch address by ID for user", description = "Changes only the fields present in a JSON Merge Patch document")
+  @APIResponse(responseCode = "200", description = "Address patched")
+  @APIResponse(responseCode = "400", description = "Patch is not a valid merge patch for an address")
+  @APIResponse(responseCode = "404", description = "Address not found")
+  @APIResponse(responseCode = "412", description = "Address no longer matches the If-Match tag")
+  public Uni<Response> patchAddressByIdForUser(@PathParam("id") Long id, @PathParam("addressId") Long addressId,
+                                               @RequestBody(description = "Fields to change") String patch,
+                                               @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+    Map<String, String> changes = MergePatch.changes(objectMapper, patch, UserAddress.class, ADDRESS_PATCH_FIELDS, validator);
+    return userService.patchUserAddress(id, addressId, changes, EntityTags.expectedVersion(ifMatch)).map(patchedAddress -> {
+      if (patchedAddress.isPresent()) {
+        return Response.ok(patchedAddress.get()).tag(EntityTags.of(patchedAddress.get().version())).build();
+      } else {
+        return Response.status(Response.Status.NOT_FOUND).build();
+      }
+    });
+  }
+
+  @DELETE
+  @Path("/{id}/addresses/{addressId}")
+  @Operation(summary = "Delete address by ID for user", description = "Deletes an address by ID for a user")
+  @APIResponse(responseCode = "204", description = "Address deleted")
+  @APIResponse(responseCode = "404", description = "Address not found")
+  @APIResponse(responseCode = "412", description = "Address no longer matches the If-Match tag")
+  public Uni<Response> deleteAddressByIdForUser(@PathParam("id") Long id, @PathParam("addressId") Long addressId,
+                                                @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+    return userService.deleteUserAddress(id, addressId, EntityTags.expectedVersion(ifMatch))
+      .map(ReactiveUserEndpoint::noContentOrNotFound);
+  }
+
+  @ServerExceptionMapper
+  public Response mapOptimisticLockException(OptimisticLockException e) {
+    return Response.status(Response.Status.PRECONDITION_FAILED).build();
+  }
+
+  @ServerExceptionMapper
+  public Response mapInvalidAddressesException(InvalidAddressesException e) {
+    return Response.status(Response.Status.BAD_REQUEST).build();
+  }
+
+  private static Response tagged(Request request, Object entity, EntityTag tag) {
+    Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+    if (notModified != null) {
+      return notModified.build();
+    }
+    return Response.ok(entity).tag(tag).build();
+  }
+
+  private static Response noContentOrNotFound(boolean deleted) {
+    return deleted ? Response.noContent().build() : Response.status(Response.Status.NOT_FOUND).build();
+  }
+}
@@ -0,0 +1,84 @@
+package ca.bc.gov.nrs.api.v1.endpoints;
+
+import ca.bc.gov.nrs.api.v1.service.UserChangeFeed;
+import ca.bc.gov.nrs.api.v1.structs.UserChange;
+import ca.bc.gov.nrs.api.v1.structs.UserChangePosition;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import io.smallrye.mutiny.Multi;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.ClientErrorException;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Optional;
+
+@Path("/api/v1/users/changes")
+@Tag(name = "User", description = "User operations")
+public class UserChangeEndpoint {
+
+  private static final String HEARTBEAT = "heartbeat";
+
+  private final UserChangeFeed userChangeFeed;
+  private final Duration heartbeatInterval;
+
+  @Inject
+  public UserChangeEndpoint(UserChangeFeed userChangeFeed,
+                            @ConfigProperty(name = "api.changes.heartbeat-interval", defaultValue = "15S") Duration heartbeatInterval) {
+    this.userChangeFeed = userChangeFeed;
+    this.heartbeatInterval = heartbeatInterval;
+  }
+
+  @GET
+  @RunOnVirtualThread
+  @Produces(MediaType.SERVER_SENT_EVENTS)
+  @Operation(summary = "Stream user changes", description = "Streams user and address changes as server-sent events, replaying those after the given position first")
+  @APIResponse(responseCode = "200", description = "Event stream; each event's ID is the position of its change")
+  @APIResponse(responseCode = "400", description = "Position is malformed")
+  @APIResponse(responseCode = "410", description = "Changes after the position are no longer kept; resynchronize, then subscribe without a position")
+  public Multi<OutboundSseEvent> streamChanges(@HeaderParam(HttpHeaders.LAST_EVENT_ID_HEADER) String lastEventId,
+                                               @QueryParam("after") @Parameter(description = "Position to resume after, when Last-Event-ID is not sent") String after,
+                                               @Context Sse sse) throws SQLException {
+    Optional<UserChangePosition> position = position(lastEventId != null ? lastEventId : after);
+    if (position.isPresent() && !userChangeFeed.canResumeAfter(position.get())) {
+      throw new ClientErrorException("Change position is older than the retained changes", Response.Status.GONE);
+    }
+    Multi<OutboundSseEvent> changes = userChangeFeed.subscribe(position)
+      .map(change -> sse.newEventBuilder()
+        .id(change.position())
+        .mediaType(MediaType.APPLICATION_JSON_TYPE)
+        .data(UserChange.class, change)
+        .build());
+    // Keeps idle connections open through proxies that close them after a period without traffic
+    Multi<OutboundSseEvent> heartbeats = Multi.createFrom().ticks().every(heartbeatInterval)
+      .map(tick -> sse.newEventBuilder().comment(HEARTBEAT).build());
+    return Multi.createBy().merging().streams(changes, heartbeats);
+  }
+
+  private static Optional<UserChangePosition> position(String token) {
+    if (token == null || token.isBlank()) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(UserChangePosition.parse(token));
+    } catch (IllegalArgumentException e) {
+      throw new BadRequestException("Malformed change position", e);
+    }
+  }
+}
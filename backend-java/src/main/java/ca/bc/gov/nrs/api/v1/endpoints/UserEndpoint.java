@@ -1,54 +1,240 @@
 package ca.bc.gov.nrs.api.v1.endpoints;
 
-import ca.bc.gov.nrs.api.v1.entity.UserAddressEntity;
 import ca.bc.gov.nrs.api.v1.entity.UserEntity;
+import ca.bc.gov.nrs.api.v1.service.InvalidAddressesException;
+import ca.bc.gov.nrs.api.v1.service.UserImportService;
 import ca.bc.gov.nrs.api.v1.service.UserService;
 import ca.bc.gov.nrs.api.v1.structs.User;
 import ca.bc.gov.nrs.api.v1.structs.UserAddress;
+import ca.bc.gov.nrs.api.v1.structs.UserBatch;
+import ca.bc.gov.nrs.api.v1.structs.UserImportSummary;
+import ca.bc.gov.nrs.api.v1.structs.UserLookup;
+import ca.bc.gov.nrs.api.v1.structs.UserWithAddresses;
+import ca.bc.gov.nrs.api.v1.tracing.Traced;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.quarkus.arc.profile.UnlessBuildProfile;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import io.smallrye.faulttolerance.api.ApplyGuard;
 import jakarta.inject.Inject;
-import jakarta.transaction.Transactional;
+import jakarta.persistence.OptimisticLockException;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.core.UriInfo;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 import org.eclipse.microprofile.openapi.annotations.parameters.RequestBody;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+import org.jboss.resteasy.reactive.server.ServerExceptionMapper;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
 
 @Path("/api/v1/users")
 @Produces("application/json")
 @Consumes("application/json")
-@Transactional(Transactional.TxType.REQUIRES_NEW)
+@Traced
+@UnlessBuildProfile("reactive")
+@RunOnVirtualThread
+@ApplyGuard(DatabaseGuard.NAME)
 @Tag(name = "User", description = "User operations")
 public class UserEndpoint {
 
+  private static final String APPLICATION_NDJSON = "application/x-ndjson";
+  private static final String TEXT_CSV = "text/csv";
+  private static final Set<String> USER_PATCH_FIELDS = Set.of("name", "email");
+  private static final Set<String> ADDRESS_PATCH_FIELDS = Set.of("street", "city", "state", "zipCode");
+
   private final UserService userService;
+  private final UserImportService userImportService;
+  private final ObjectMapper objectMapper;
+  private final Validator validator;
+  private final LoadShedding loadShedding;
+  // Streams and exports write after the guarded method has returned, so their connections are bounded here instead
+  private final Semaphore streams;
+  private final Semaphore exports;
 
   @Inject
-  public UserEndpoint(UserService userService) {
+  public UserEndpoint(UserService userService, UserImportService userImportService, ObjectMapper objectMapper,
+                      Validator validator, LoadShedding loadShedding,
+                      @ConfigProperty(name = "api.users.stream.max-concurrent", defaultValue = "1") int maxConcurrentStreams,
+                      @ConfigProperty(name = "api.users.export.max-concurrent", defaultValue = "1") int maxConcurrentExports) {
     this.userService = userService;
+    this.userImportService = userImportService;
+    this.objectMapper = objectMapper;
+    this.validator = validator;
+    this.loadShedding = loadShedding;
+    this.streams = new Semaphore(maxConcurrentStreams);
+    this.exports = new Semaphore(maxConcurrentExports);
+  }
+
+  @GET
+  @Produces({"application/json", CborMessageBodyWriter.MEDIA_TYPE})
+  @Operation(summary = "Get users", description = "Returns a page of users ordered by ID, starting after the given user ID and optionally filtered by email or name; or, given ids, those users and the IDs without one")
+  @APIResponse(responseCode = "200", description = "Page of users, with a next link when more users may follow; a UserBatch when ids are given")
+  public Response getAllUsers(@QueryParam("after") @Min(0) Long after,
+                              @QueryParam("limit") @DefaultValue(Pages.DEFAULT_SIZE) @Min(1) @Max(Pages.MAX_SIZE) int limit,
+                              @QueryParam("email") @Parameter(description = "Exact email") @Size(max = 50) String email,
+                              @QueryParam("emailPrefix") @Parameter(description = "Case-sensitive email prefix") @Size(max = 50) String emailPrefix,
+                              @QueryParam("namePrefix") @Parameter(description = "Case-sensitive name prefix") @Size(max = 50) String namePrefix,
+                              @QueryParam("ids") @Parameter(description = "User IDs to fetch instead of a page, comma separated or repeated; at most 1000") List<String> ids,
+                              @QueryParam("expand") @Parameter(description = "Related resources to nest; only \"addresses\" is supported") List<String> expand,
+                              @Context UriInfo uriInfo) {
+    if (UserIds.present(ids)) {
+      return Response.ok(batch(UserIds.parse(ids), expand)).header(HttpHeaders.VARY, HttpHeaders.ACCEPT).build();
+    }
+    List<User> users = userService.findPage(after == null ? 0 : after, limit, email, emailPrefix, namePrefix);
+    if (Expansions.addresses(expand)) {
+      return Pages.page(userService.withAddresses(users), limit, uriInfo, UserWithAddresses::id);
+    }
+    return Pages.page(users, limit, uriInfo, User::id);
+  }
+
+  @POST
+  @Path("/lookup")
+  @Operation(summary = "Get users by ID", description = "Returns the users with the given IDs and the IDs without one, for ID lists too long for a query string")
+  @APIResponse(responseCode = "200", description = "Users found, in the order their IDs were given, and the missing IDs")
+  @APIResponse(responseCode = "400", description = "No IDs, or more than 1000")
+  public UserBatch<?> lookupUsers(@Valid @RequestBody(description = "IDs to fetch") UserLookup lookup,
+                                  @QueryParam("expand") @Parameter(description = "Related resources to nest; only \"addresses\" is supported") List<String> expand) {
+    return batch(UserIds.distinct(lookup.ids()), expand);
+  }
+
+  /**
+   * One query for the users and, when expanded, one for all of their addresses.
+   */
+  private UserBatch<?> batch(List<Long> ids, List<String> expand) {
+    List<User> users = userService.findByIds(ids);
+    if (Expansions.addresses(expand)) {
+      return UserBatch.of(ids, userService.withAddresses(users), UserWithAddresses::id);
+    }
+    return UserBatch.of(ids, users, User::id);
   }
 
   @GET
-  @Operation(summary = "Get all users", description = "Returns a list of all users")
+  @Path("/stream")
+  @Operation(summary = "Stream all users", description = "Streams every user as a JSON array straight from a database cursor")
   @APIResponse(responseCode = "200", description = "List of users")
-  public List<User> getAllUsers() {
-    return userService.findAll().stream().map(User::toUserRecord).toList();
+  @APIResponse(responseCode = "503", description = "As many streams as allowed are already running")
+  public Response streamAllUsers() {
+    if (!streams.tryAcquire()) {
+      return shed(LoadShedding.STREAMS);
+    }
+    // The body is written after this method returns, so the cursor needs its own transaction.
+    return Response.ok(releasing(streams, output -> QuarkusTransaction.requiringNew().run(() -> writeUsers(output)))).build();
+  }
+
+  private void writeUsers(OutputStream output) {
+    try (Stream<User> users = userService.streamAll();
+         SequenceWriter writer = objectMapper.writerFor(User.class)
+           .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+           .writeValuesAsArray(output)) {
+      for (Iterator<User> iterator = users.iterator(); iterator.hasNext(); ) {
+        writer.write(iterator.next());
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @GET
+  @Path("/export")
+  @Produces(TEXT_CSV)
+  @Operation(summary = "Export users as CSV", description = "Streams every user joined with its addresses, one row per address, straight from the database")
+  @APIResponse(responseCode = "200", description = "CSV with a header row")
+  @APIResponse(responseCode = "503", description = "As many exports as allowed are already running")
+  public Response exportUsersCsv() {
+    return export(userService::exportCsv, "users.csv");
+  }
+
+  @GET
+  @Path("/export")
+  @Produces(APPLICATION_NDJSON)
+  @Operation(summary = "Export users as NDJSON", description = "Streams every user with its addresses nested, one JSON object per line, straight from the database")
+  @APIResponse(responseCode = "200", description = "One user per line")
+  @APIResponse(responseCode = "503", description = "As many exports as allowed are already running")
+  public Response exportUsersNdjson() {
+    return export(userService::exportNdjson, "users.ndjson");
+  }
+
+  private Response export(StreamingOutput body, String fileName) {
+    if (!exports.tryAcquire()) {
+      return shed(LoadShedding.EXPORTS);
+    }
+    return Response.ok(releasing(exports, body))
+      .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"").build();
+  }
+
+  private Response shed(String reason) {
+    loadShedding.shed(reason);
+    return Response.status(Response.Status.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, LoadShedding.RETRY_AFTER_SECONDS).build();
+  }
+
+  /**
+   * {@code body}, giving back the permit already taken from {@code permits} once it has been written.
+   */
+  private static StreamingOutput releasing(Semaphore permits, StreamingOutput body) {
+    return output -> {
+      try {
+        body.write(output);
+      } finally {
+        permits.release();
+      }
+    };
   }
 
   @GET
   @Path("/{id}")
   @Operation(summary = "Get user by ID", description = "Returns a user by ID")
   @APIResponse(responseCode = "200", description = "User found")
+  @APIResponse(responseCode = "304", description = "User matches the If-None-Match tag")
   @APIResponse(responseCode = "404", description = "User not found")
-
-  public Response getUserById(@PathParam("id") Long id) {
-    Optional<UserEntity> user = userService.findById(id);
-    if (user.isPresent()) {
-      return Response.ok(User.toUserRecord(user.get())).build();
+  public Response getUserById(@PathParam("id") Long id,
+                              @QueryParam("expand") @Parameter(description = "Related resources to nest; only \"addresses\" is supported") List<String> expand,
+                              @Context Request request) {
+    Optional<User> user = userService.findUserById(id);
+    if (user.isPresent() && Expansions.addresses(expand)) {
+      List<UserAddress> addresses = userService.findUserAddresses(id).orElse(List.of());
+      EntityTag tag = EntityTags.of(user.get().version(), addresses);
+      Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+      if (notModified != null) {
+        return notModified.build();
+      }
+      return Response.ok(UserWithAddresses.of(user.get(), addresses)).tag(tag).build();
+    } else if (user.isPresent()) {
+      EntityTag tag = EntityTags.of(user.get().version());
+      Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+      if (notModified != null) {
+        return notModified.build();
+      }
+      return Response.ok(user.get()).tag(tag).build();
     } else {
       return Response.status(Response.Status.NOT_FOUND).build();
     }
@@ -62,17 +248,50 @@ public class UserEndpoint {
     return Response.status(Response.Status.CREATED).entity(createdUser).build();
   }
 
+  @POST
+  @Path("/bulk")
+  @Consumes({"application/json", APPLICATION_NDJSON})
+  @Operation(summary = "Import users", description = "Creates users from a JSON array or an NDJSON stream, committing in chunks so a rejected user does not roll back the others")
+  @APIResponse(responseCode = "200", description = "Outcome of every user read; malformed JSON rejects the user at that position and ends the import")
+  @APIResponse(responseCode = "400", description = "Payload does not start as valid JSON")
+  public UserImportSummary importUsers(@RequestBody(description = "Users to create") InputStream body) throws IOException {
+    try (MappingIterator<User> users = objectMapper.readerFor(User.class).readValues(body)) {
+      return userImportService.importUsers(users);
+    } catch (JsonProcessingException e) {
+      throw new BadRequestException("Payload is not valid JSON", e);
+    }
+  }
+
   @PUT
   @Path("/{id}")
   @Operation(summary = "Update user by ID", description = "Updates a user by ID")
   @APIResponse(responseCode = "200", description = "User updated")
   @APIResponse(responseCode = "404", description = "User not found")
-
-  public Response updateUser(@PathParam("id") Long id, User user) {
-    Optional<UserEntity> existingUser = userService.findById(id);
+  @APIResponse(responseCode = "412", description = "User no longer matches the If-Match tag")
+  public Response updateUser(@PathParam("id") Long id, User user, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+    Optional<UserEntity> existingUser = userService.update(id, user, EntityTags.expectedVersion(ifMatch));
     if (existingUser.isPresent()) {
-      User updatedUser = User.toUserRecord(userService.save(User.toAttachedUserEntity(user, existingUser.get())));
-      return Response.ok(updatedUser).build();
+      User updatedUser = User.toUserRecord(existingUser.get());
+      return Response.ok(updatedUser).tag(EntityTags.of(updatedUser.version())).build();
+    } else {
+      return Response.status(Response.Status.NOT_FOUND).build();
+    }
+  }
+
+  @PATCH
+  @Path("/{id}")
+  @Consumes(MergePatch.MEDIA_TYPE)
+  @Operation(summary = "Patch user by ID", description = "Changes only the fields present in a JSON Merge Patch document")
+  @APIResponse(responseCode = "200", description = "User patched")
+  @APIResponse(responseCode = "400", description = "Patch is not a valid merge patch for a user")
+  @APIResponse(responseCode = "404", description = "User not found")
+  @APIResponse(responseCode = "412", description = "User no longer matches the If-Match tag")
+  public Response patchUser(@PathParam("id") Long id, @RequestBody(description = "Fields to change") String patch,
+                            @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+    Map<String, String> changes = MergePatch.changes(objectMapper, patch, User.class, USER_PATCH_FIELDS, validator);
+    Optional<User> patchedUser = userService.patch(id, changes, EntityTags.expectedVersion(ifMatch));
+    if (patchedUser.isPresent()) {
+      return Response.ok(patchedUser.get()).tag(EntityTags.of(patchedUser.get().version())).build();
     } else {
       return Response.status(Response.Status.NOT_FOUND).build();
     }
@@ -83,10 +302,9 @@ public class UserEndpoint {
   @Operation(summary = "Delete user by ID", description = "Deletes a user by ID")
   @APIResponse(responseCode = "204", description = "User deleted")
   @APIResponse(responseCode = "404", description = "User not found")
-  public Response deleteUser(@PathParam("id") Long id) {
-    Optional<UserEntity> user = userService.findById(id);
-    if (user.isPresent()) {
-      userService.deleteById(id);
+  @APIResponse(responseCode = "412", description = "User no longer matches the If-Match tag")
+  public Response deleteUser(@PathParam("id") Long id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+    if (userService.deleteById(id, EntityTags.expectedVersion(ifMatch))) {
       return Response.noContent().build();
     } else {
       return Response.status(Response.Status.NOT_FOUND).build();
@@ -95,15 +313,21 @@ public class UserEndpoint {
 
   @GET
   @Path("/{id}/addresses")
+  @Produces({"application/json", CborMessageBodyWriter.MEDIA_TYPE})
   @Operation(summary = "Get all addresses for user", description = "Returns a list of all addresses for a user")
   @APIResponse(responseCode = "200", description = "List of addresses")
+  @APIResponse(responseCode = "304", description = "Addresses match the If-None-Match tag")
   @APIResponse(responseCode = "404", description = "User not found")
-  public Response getAllAddressesForUser(@PathParam("id") Long id) {
-    Optional<UserEntity> optionalUserEntity = userService.findById(id);
-    if (optionalUserEntity.isPresent()) {
-      List<UserAddress> addresses = optionalUserEntity.get().getAddresses().stream().map(UserAddress::toUserAddressRecord)
-        .toList();
-      return Response.ok(addresses).build();
+  public Response getAllAddressesForUser(@PathParam("id") Long id, @Context Request request) {
+    Optional<List<UserAddress>> addresses = userService.findUserAddresses(id);
+    if (addresses.isPresent()) {
+      MediaType mediaType = CborMessageBodyWriter.select(request);
+      EntityTag tag = EntityTags.of(addresses.get(), mediaType);
+      Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+      if (notModified != null) {
+        return notModified.header(HttpHeaders.VARY, HttpHeaders.ACCEPT).build();
+      }
+      return Response.ok(addresses.get(), mediaType).tag(tag).header(HttpHeaders.VARY, HttpHeaders.ACCEPT).build();
     } else {
       return Response.status(Response.Status.NOT_FOUND).build();
     }
@@ -113,16 +337,18 @@ public class UserEndpoint {
   @Path("/{id}/addresses/{addressId}")
   @Operation(summary = "Get address by ID for user", description = "Returns an address by ID for a user")
   @APIResponse(responseCode = "200", description = "Address found")
+  @APIResponse(responseCode = "304", description = "Address matches the If-None-Match tag")
   @APIResponse(responseCode = "404", description = "Address not found")
-  public Response getAddressByIdForUser(@PathParam("id") Long id, @PathParam("addressId") Long addressId) {
-    Optional<UserEntity> user = userService.findById(id);
-    if (user.isPresent()) {
-      Optional<UserAddressEntity> address = userService.findUserAddressById(addressId);
-      if (address.isPresent()) {
-        return Response.ok(UserAddress.toUserAddressRecord(address.get())).build();
-      } else {
-        return Response.status(Response.Status.NOT_FOUND).build();
+  public Response getAddressByIdForUser(@PathParam("id") Long id, @PathParam("addressId") Long addressId,
+                                       @Context Request request) {
+    Optional<UserAddress> address = userService.findUserAddress(id, addressId);
+    if (address.isPresent()) {
+      EntityTag tag = EntityTags.of(address.get().version());
+      Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+      if (notModified != null) {
+        return notModified.build();
       }
+      return Response.ok(address.get()).tag(tag).build();
     } else {
       return Response.status(Response.Status.NOT_FOUND).build();
     }
@@ -135,11 +361,30 @@ public class UserEndpoint {
   @APIResponse(responseCode = "404", description = "User not found")
   public Response createAddressForUser(@PathParam("id") Long id,
                                        @Valid @RequestBody(description = "Address to create") UserAddress address) {
-    Optional<UserEntity> user = userService.findById(id);
-    if (user.isPresent()) {
-      UserAddress createdAddress = UserAddress
-        .toUserAddressRecord(userService.saveUserAddress(UserAddress.toUserAddressEntity(address, user.get())));
-      return Response.status(Response.Status.CREATED).entity(createdAddress).build();
+    Optional<UserAddress> createdAddress = userService.saveUserAddress(id, address);
+    if (createdAddress.isPresent()) {
+      return Response.status(Response.Status.CREATED).entity(createdAddress.get())
+        .tag(EntityTags.of(createdAddress.get().version())).build();
+    } else {
+      return Response.status(Response.Status.NOT_FOUND).build();
+    }
+  }
+
+  @PUT
+  @Path("/{id}/addresses")
+  @Operation(summary = "Replace all addresses for user",
+    description = "Makes the given list the user's addresses: addresses with an ID are updated, those without one are created and any others are deleted")
+  @APIResponse(responseCode = "200", description = "Addresses replaced")
+  @APIResponse(responseCode = "400", description = "An ID is not one of the user's addresses or is repeated")
+  @APIResponse(responseCode = "404", description = "User not found")
+  @APIResponse(responseCode = "412", description = "Addresses no longer match the If-Match tag")
+  public Response replaceAddressesForUser(@PathParam("id") Long id,
+                                          @NotNull @RequestBody(description = "The user's complete list of addresses") List<@NotNull @Valid UserAddress> addresses,
+                                          @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+    Optional<List<UserAddress>> replacedAddresses = userService.replaceUserAddresses(id, addresses,
+      current -> EntityTags.matches(ifMatch, EntityTags.of(current)));
+    if (replacedAddresses.isPresent()) {
+      return Response.ok(replacedAddresses.get()).tag(EntityTags.of(replacedAddresses.get())).build();
     } else {
       return Response.status(Response.Status.NOT_FOUND).build();
     }
@@ -150,18 +395,33 @@ public class UserEndpoint {
   @Operation(summary = "Update address by ID for user", description = "Updates an address by ID for a user")
   @APIResponse(responseCode = "200", description = "Address updated")
   @APIResponse(responseCode = "404", description = "Address not found")
+  @APIResponse(responseCode = "412", description = "Address no longer matches the If-Match tag")
   public Response updateAddressByIdForUser(@PathParam("id") Long id, @PathParam("addressId") Long addressId,
-                                           @Valid @RequestBody(description = "Address to update") UserAddress address) {
-    Optional<UserEntity> user = userService.findById(id);
-    if (user.isPresent()) {
-      Optional<UserAddressEntity> existingAddress = userService.findUserAddressById(addressId);
-      if (existingAddress.isPresent()) {
-        UserAddressEntity updatedAddressEntity = UserAddress.toUserAddressEntityAttached(address, user.get(), existingAddress.get());
-        var addressEntity = userService.saveUserAddress(updatedAddressEntity);
-        return Response.ok(UserAddress.toUserAddressRecord(addressEntity)).build();
-      } else {
-        return Response.status(Response.Status.NOT_FOUND).build();
-      }
+                                           @Valid @RequestBody(description = "Address to update") UserAddress address,
+                                           @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+    Optional<UserAddress> updatedAddress = userService.updateUserAddress(id, addressId, address, EntityTags.expectedVersion(ifMatch));
+    if (updatedAddress.isPresent()) {
+      return Response.ok(updatedAddress.get()).tag(EntityTags.of(updatedAddress.get().version())).build();
+    } else {
+      return Response.status(Response.Status.NOT_FOUND).build();
+    }
+  }
+
+  @PATCH
+  @Path("/{id}/addresses/{addressId}")
+  @Consumes(MergePatch.MEDIA_TYPE)
+  @Operation(summary = "Patch address by ID for user", description = "Changes only the fields present in a JSON Merge Patch document")
+  @APIResponse(responseCode = "200", description = "Address patched")
+  @APIResponse(responseCode = "400", description = "Patch is not a valid merge patch for an address")
+  @APIResponse(responseCode = "404", description = "Address not found")
+  @APIResponse(responseCode = "412", description = "Address no longer matches the If-Match tag")
+  public Response patchAddressByIdForUser(@PathParam("id") Long id, @PathParam("addressId") Long addressId,
+                                          @RequestBody(description = "Fields to change") String patch,
+                                          @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+    Map<String, String> changes = MergePatch.changes(objectMapper, patch, UserAddress.class, ADDRESS_PATCH_FIELDS, validator);
+    Optional<UserAddress> patchedAddress = userService.patchUserAddress(id, addressId, changes, EntityTags.expectedVersion(ifMatch));
+    if (patchedAddress.isPresent()) {
+      return Response.ok(patchedAddress.get()).tag(EntityTags.of(patchedAddress.get().version())).build();
     } else {
       return Response.status(Response.Status.NOT_FOUND).build();
     }
@@ -172,18 +432,23 @@ public class UserEndpoint {
   @Operation(summary = "Delete address by ID for user", description = "Deletes an address by ID for a user")
   @APIResponse(responseCode = "204", description = "Address deleted")
   @APIResponse(responseCode = "404", description = "Address not found")
-  public Response deleteAddressByIdForUser(@PathParam("id") Long id, @PathParam("addressId") Long addressId) {
-    Optional<UserEntity> user = userService.findById(id);
-    if (user.isPresent()) {
-      Optional<UserAddressEntity> existingAddress = userService.findUserAddressById(addressId);
-      if (existingAddress.isPresent()) {
-        userService.deleteUserAddressById(existingAddress.get().getId());
-        return Response.noContent().build();
-      } else {
-        return Response.status(Response.Status.NOT_FOUND).build();
-      }
+  @APIResponse(responseCode = "412", description = "Address no longer matches the If-Match tag")
+  public Response deleteAddressByIdForUser(@PathParam("id") Long id, @PathParam("addressId") Long addressId,
+                                           @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+    if (userService.deleteUserAddress(id, addressId, EntityTags.expectedVersion(ifMatch))) {
+      return Response.noContent().build();
     } else {
       return Response.status(Response.Status.NOT_FOUND).build();
     }
   }
+
+  @ServerExceptionMapper
+  public Response mapOptimisticLockException(OptimisticLockException e) {
+    return Response.status(Response.Status.PRECONDITION_FAILED).build();
+  }
+
+  @ServerExceptionMapper
+  public Response mapInvalidAddressesException(InvalidAddressesException e) {
+    return Response.status(Response.Status.BAD_REQUEST).build();
+  }
 }
@@ -0,0 +1,53 @@
+package ca.bc.gov.nrs.api.v1.endpoints;
+
+import ca.bc.gov.nrs.api.v1.structs.UserLookup;
+import jakarta.ws.rs.BadRequestException;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Parses the {@code ids} query parameter, given repeated ({@code ids=1&ids=2}) or comma separated, dropping duplicates
+ * but keeping the order of first appearance.
+ */
+final class UserIds {
+
+  private UserIds() {
+  }
+
+  static boolean present(List<String> ids) {
+    return ids != null && ids.stream().anyMatch(value -> !value.isBlank());
+  }
+
+  static List<Long> parse(List<String> ids) {
+    Set<Long> parsed = new LinkedHashSet<>();
+    for (String value : ids) {
+      for (String id : value.split(",")) {
+        if (!id.isBlank()) {
+          parsed.add(parseId(id.strip()));
+        }
+      }
+    }
+    return distinct(List.copyOf(parsed));
+  }
+
+  /**
+   * Drops duplicates from a lookup body and enforces the same limit as the query parameter.
+   */
+  static List<Long> distinct(List<Long> ids) {
+    List<Long> distinct = List.copyOf(new LinkedHashSet<>(ids));
+    if (distinct.size() > UserLookup.MAX_IDS) {
+      throw new BadRequestException("At most " + UserLookup.MAX_IDS + " IDs can be fetched at once");
+    }
+    return distinct;
+  }
+
+  private static Long parseId(String id) {
+    try {
+      return Long.valueOf(id);
+    } catch (NumberFormatException e) {
+      throw new BadRequestException("Not a user ID: " + id);
+    }
+  }
+}
@@ -1,14 +1,23 @@
 package ca.bc.gov.nrs.api.v1.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import org.hibernate.annotations.PartitionKey;
 
 @Entity(name = "UserAddress")
 @Table(name = "user_addresses", schema = "java_api")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@DynamicUpdate
 public class UserAddressEntity {
 
   @Id
   @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_address_seq")
-  @SequenceGenerator(schema = "java_api", name = "user_address_seq", sequenceName = "user_addresses_id_seq", allocationSize = 1)
+  @SequenceGenerator(schema = "java_api", name = "user_address_seq", sequenceName = "user_addresses_id_seq", allocationSize = 50)
   private Long id;
 
   @Column(name = "street", nullable = false, length = 50)
@@ -23,10 +32,23 @@ public class UserAddressEntity {
   @Column(name = "zip_code", nullable = false, length = 10)
   private String zipCode;
 
+  @Version
+  @Column(name = "version", nullable = false)
+  private Long version;
+
   @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "user_id", nullable = false)
+  @OnDelete(action = OnDeleteAction.CASCADE)
   private UserEntity userEntity;
 
+  /**
+   * The table is hash-partitioned on user_id; as the partition key it is added to every update and delete by ID, so
+   * they touch one partition. Written through {@link #userEntity} and kept in step with it by {@link #setUser}.
+   */
+  @PartitionKey
+  @Column(name = "user_id", nullable = false, insertable = false, updatable = false)
+  private Long userId;
+
   public UserAddressEntity() {
   }
 
@@ -35,7 +57,7 @@ public class UserAddressEntity {
     this.city = city;
     this.state = state;
     this.zipCode = zipCode;
-    this.userEntity = userEntity;
+    setUser(userEntity);
   }
 
   public Long getId() {
@@ -78,11 +100,20 @@ public class UserAddressEntity {
     this.zipCode = zipCode;
   }
 
+  public Long getVersion() {
+    return version;
+  }
+
+  public void setVersion(Long version) {
+    this.version = version;
+  }
+
   public UserEntity getUser() {
     return userEntity;
   }
 
   public void setUser(UserEntity userEntity) {
     this.userEntity = userEntity;
+    this.userId = userEntity == null ? null : userEntity.getId();
   }
 }
@@ -2,6 +2,7 @@ package ca.bc.gov.nrs.api.v1.entity;
 
 import java.util.List;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -9,16 +10,24 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.OrderBy;
 import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Entity(name = "users")
 @Table(name = "users", schema = "java_api")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@DynamicUpdate
 public class UserEntity {
 
   @Id
   @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_seq")
-  @SequenceGenerator(schema = "java_api", name = "user_seq", sequenceName = "user_id_seq", allocationSize = 1)
+  @SequenceGenerator(schema = "java_api", name = "user_seq", sequenceName = "user_id_seq", allocationSize = 50)
   @Column(name = "id")
   private Long id;
 
@@ -28,7 +37,13 @@ public class UserEntity {
   @Column(name = "email", nullable = false, unique = true)
   private String email;
 
+  @Version
+  @Column(name = "version", nullable = false)
+  private Long version;
+
   @OneToMany(mappedBy = "userEntity", cascade = CascadeType.ALL, orphanRemoval = true)
+  @OrderBy("id")
+  @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
   private List<UserAddressEntity> addresses;
 
   public UserEntity() {
@@ -70,6 +85,14 @@ public class UserEntity {
     this.email = email;
   }
 
+  public Long getVersion() {
+    return version;
+  }
+
+  public void setVersion(Long version) {
+    this.version = version;
+  }
+
   @Override
   public String toString() {
     return "Entity{" +
@@ -0,0 +1,28 @@
+package ca.bc.gov.nrs.api.v1.metrics;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
+
+@Singleton
+public class MetricsConfiguration {
+
+  /**
+   * Publishes histogram buckets for HTTP and API timers, so latency percentiles can be aggregated across pods.
+   */
+  @Produces
+  @Singleton
+  public MeterFilter latencyHistograms() {
+    return new MeterFilter() {
+      @Override
+      public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+        if (id.getName().startsWith("http.server.requests") || id.getName().startsWith("api.")) {
+          return DistributionStatisticConfig.builder().percentilesHistogram(true).build().merge(config);
+        }
+        return config;
+      }
+    };
+  }
+}
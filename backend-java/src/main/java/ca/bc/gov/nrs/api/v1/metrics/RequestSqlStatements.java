@@ -0,0 +1,20 @@
+package ca.bc.gov.nrs.api.v1.metrics;
+
+import jakarta.enterprise.context.RequestScoped;
+
+/**
+ * SQL statements Hibernate prepared while serving the current request.
+ */
+@RequestScoped
+public class RequestSqlStatements {
+
+  private int count;
+
+  void increment() {
+    count++;
+  }
+
+  public int count() {
+    return count;
+  }
+}
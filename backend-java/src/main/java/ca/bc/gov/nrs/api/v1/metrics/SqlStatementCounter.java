@@ -0,0 +1,30 @@
+package ca.bc.gov.nrs.api.v1.metrics;
+
+import io.quarkus.arc.Arc;
+import io.quarkus.hibernate.orm.PersistenceUnitExtension;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts every statement Hibernate prepares against the request it runs in; the SQL itself is left untouched.
+ */
+@PersistenceUnitExtension
+@ApplicationScoped
+public class SqlStatementCounter implements StatementInspector {
+
+  private final RequestSqlStatements requestSqlStatements;
+
+  @Inject
+  public SqlStatementCounter(RequestSqlStatements requestSqlStatements) {
+    this.requestSqlStatements = requestSqlStatements;
+  }
+
+  @Override
+  public String inspect(String sql) {
+    if (Arc.container().requestContext().isActive()) {
+      requestSqlStatements.increment();
+    }
+    return sql;
+  }
+}
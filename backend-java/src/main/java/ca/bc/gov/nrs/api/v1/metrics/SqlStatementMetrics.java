@@ -0,0 +1,51 @@
+package ca.bc.gov.nrs.api.v1.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.jboss.resteasy.reactive.server.ServerResponseFilter;
+import org.jboss.resteasy.reactive.server.SimpleResourceInfo;
+
+/**
+ * Records {@code api.http.sql.statements}: how many SQL statements each resource method needed per request, so
+ * database-bound endpoints stand out next to their {@code http.server.requests} latency.
+ * <p>
+ * Streamed bodies (a {@link StreamingOutput} or server-sent events) run their statements after this filter, so they are
+ * left out rather than recorded as zero.
+ */
+public class SqlStatementMetrics {
+
+  static final String SQL_STATEMENTS = "api.http.sql.statements";
+
+  private final MeterRegistry registry;
+  private final RequestSqlStatements requestSqlStatements;
+
+  @Inject
+  public SqlStatementMetrics(MeterRegistry registry, RequestSqlStatements requestSqlStatements) {
+    this.registry = registry;
+    this.requestSqlStatements = requestSqlStatements;
+  }
+
+  @ServerResponseFilter
+  public void recordSqlStatements(ContainerRequestContext request, ContainerResponseContext response,
+                                  SimpleResourceInfo resourceInfo) {
+    if (resourceInfo == null || resourceInfo.getResourceClass() == null || isStreamed(response)) {
+      return;
+    }
+    DistributionSummary.builder(SQL_STATEMENTS)
+      .description("SQL statements executed per request")
+      .tag("method", request.getMethod())
+      .tag("resource", resourceInfo.getResourceClass().getSimpleName() + "." + resourceInfo.getMethodName())
+      .register(registry)
+      .record(requestSqlStatements.count());
+  }
+
+  private static boolean isStreamed(ContainerResponseContext response) {
+    return response.getEntity() instanceof StreamingOutput
+      || MediaType.SERVER_SENT_EVENTS_TYPE.isCompatible(response.getMediaType());
+  }
+}
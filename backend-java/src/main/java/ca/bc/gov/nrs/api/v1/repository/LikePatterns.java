@@ -0,0 +1,23 @@
+package ca.bc.gov.nrs.api.v1.repository;
+
+/**
+ * Builds LIKE patterns from user input, escaping wildcards with {@link #ESCAPE} so they match literally.
+ */
+final class LikePatterns {
+
+  static final char ESCAPE = '\\';
+
+  private LikePatterns() {
+  }
+
+  static String startsWith(String prefix) {
+    StringBuilder pattern = new StringBuilder(prefix.length() + 1);
+    for (char c : prefix.toCharArray()) {
+      if (c == '%' || c == '_' || c == ESCAPE) {
+        pattern.append(ESCAPE);
+      }
+      pattern.append(c);
+    }
+    return pattern.append('%').toString();
+  }
+}
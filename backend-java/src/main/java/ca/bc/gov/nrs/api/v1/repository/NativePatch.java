@@ -0,0 +1,43 @@
+package ca.bc.gov.nrs.api.v1.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the {@code UPDATE ... SET <changed columns>, version = version + 1 WHERE ... RETURNING ...} behind the patch
+ * endpoints. Column names come from a fixed whitelist; values are always bound.
+ */
+final class NativePatch {
+
+  private NativePatch() {
+  }
+
+  @SuppressWarnings("unchecked")
+  static List<Object[]> execute(EntityManager entityManager, String table, Map<String, String> columns,
+                                Map<String, String> changes, String where, Map<String, Object> keys,
+                                Long expectedVersion, String returning) {
+    StringBuilder sql = new StringBuilder("update ").append(table).append(" set version = version + 1");
+    for (String field : changes.keySet()) {
+      String column = columns.get(field);
+      if (column == null) {
+        throw new IllegalArgumentException(field + " cannot be patched");
+      }
+      sql.append(", ").append(column).append(" = :").append(field);
+    }
+    sql.append(" where ").append(where);
+    if (expectedVersion != null) {
+      sql.append(" and version = :expectedVersion");
+    }
+    sql.append(" returning ").append(returning);
+    Query query = entityManager.createNativeQuery(sql.toString());
+    changes.forEach(query::setParameter);
+    keys.forEach(query::setParameter);
+    if (expectedVersion != null) {
+      query.setParameter("expectedVersion", expectedVersion);
+    }
+    return query.getResultList();
+  }
+}
@@ -0,0 +1,71 @@
+package ca.bc.gov.nrs.api.v1.repository;
+
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.SqlClient;
+import io.vertx.mutiny.sqlclient.Tuple;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hands out ids the way Hibernate's {@code pooled-lo} optimizer, the Quarkus default, does: each {@code nextval} of a
+ * sequence that increments by {@code allocationSize} reserves the block starting at the returned value. Both builds
+ * can therefore share one database without handing out the same id. The sequences increment by 50 for the entities,
+ * so an insert that took its id from the column default would burn a whole block per row.
+ */
+final class PooledIds {
+
+  private final String sequence;
+  private final int allocationSize;
+  // Guarded by this; the current block is next..hi, empty when next > hi
+  private long next = 1;
+  private long hi = 0;
+
+  PooledIds(String sequence, int allocationSize) {
+    this.sequence = sequence;
+    this.allocationSize = allocationSize;
+  }
+
+  Uni<Long> next(SqlClient client) {
+    return next(client, 1).map(List::getFirst);
+  }
+
+  /**
+   * {@code count} ids, reserving as many blocks as are missing in one query.
+   */
+  Uni<List<Long>> next(SqlClient client, int count) {
+    List<Long> ids = new ArrayList<>(count);
+    take(ids, count);
+    if (ids.size() == count) {
+      return Uni.createFrom().item(ids);
+    }
+    int blocks = (count - ids.size() + allocationSize - 1) / allocationSize;
+    return client.preparedQuery("SELECT nextval($1::regclass) FROM generate_series(1, $2::int)")
+      .execute(Tuple.of(sequence, blocks))
+      .map(rows -> {
+        for (Row row : rows) {
+          refill(row.getLong(0), ids, count);
+        }
+        return ids;
+      });
+  }
+
+  private synchronized void take(List<Long> ids, int count) {
+    while (ids.size() < count && next <= hi) {
+      ids.add(next++);
+    }
+  }
+
+  /**
+   * Takes what is still needed from a fresh block and keeps the rest. If another caller refilled meanwhile, the ids
+   * left in its block are dropped; that only leaves a gap.
+   */
+  private synchronized void refill(long blockLo, List<Long> ids, int count) {
+    next = blockLo;
+    hi = blockLo + allocationSize - 1;
+    while (ids.size() < count && next <= hi) {
+      ids.add(next++);
+    }
+  }
+}
@@ -0,0 +1,292 @@
+package ca.bc.gov.nrs.api.v1.repository;
+
+import ca.bc.gov.nrs.api.v1.structs.User;
+import ca.bc.gov.nrs.api.v1.structs.UserAddress;
+import io.quarkus.arc.profile.IfBuildProfile;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.RowSet;
+import io.vertx.mutiny.sqlclient.SqlClient;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Non-blocking counterpart of {@link UserRepository} and {@link UserAddressRepository} on the reactive PostgreSQL
+ * client, used by the {@code reactive} build profile. Every operation is a single SQL statement, apart from
+ * {@link #replaceAddresses}, which reads the current addresses before its write in one transaction.
+ */
+@ApplicationScoped
+@IfBuildProfile("reactive")
+public class ReactiveUserRepository {
+
+  // The entities' allocationSize; ids are taken from the sequences in the same blocks Hibernate uses
+  private static final int ID_ALLOCATION_SIZE = 50;
+  private static final String USER_COLUMNS = "id, name, email, version";
+  private static final String ADDRESS_COLUMNS = "id, street, city, state, zip_code, user_id, version";
+  private static final Map<String, String> USER_PATCH_COLUMNS = Map.of("name", "name", "email", "email");
+  private static final Map<String, String> ADDRESS_PATCH_COLUMNS = Map.of(
+    "street", "street", "city", "city", "state", "state", "zipCode", "zip_code");
+  private static final String REPLACE_ADDRESSES = """
+    WITH input AS (
+      SELECT * FROM unnest($2::bigint[], $3::bigint[], $4::text[], $5::text[], $6::text[], $7::text[])
+        AS i(id, new_id, street, city, state, zip_code)
+    ), deleted AS (
+      DELETE FROM java_api.user_addresses
+      WHERE user_id = $1::bigint AND id NOT IN (SELECT id FROM input WHERE id IS NOT NULL)
+    ), updated AS (
+      UPDATE java_api.user_addresses a
+      SET street = i.street, city = i.city, state = i.state, zip_code = i.zip_code, version = a.version + 1
+      FROM input i
+      WHERE a.id = i.id AND a.user_id = $1::bigint
+        AND (a.street, a.city, a.state, a.zip_code) IS DISTINCT FROM (i.street, i.city, i.state, i.zip_code)
+      RETURNING a.id, a.street, a.city, a.state, a.zip_code, a.user_id, a.version
+    ), inserted AS (
+      INSERT INTO java_api.user_addresses (id, street, city, state, zip_code, user_id)
+      SELECT new_id, street, city, state, zip_code, $1::bigint FROM input WHERE id IS NULL
+      RETURNING id, street, city, state, zip_code, user_id, version
+    )
+    SELECT id, street, city, state, zip_code, user_id, version FROM java_api.user_addresses
+    WHERE user_id = $1::bigint AND id IN (SELECT id FROM input) AND id NOT IN (SELECT id FROM updated)
+    UNION ALL SELECT * FROM updated
+    UNION ALL SELECT * FROM inserted
+    ORDER BY id""";
+
+  private final Pool client;
+  private final PooledIds userIds = new PooledIds("java_api.user_id_seq", ID_ALLOCATION_SIZE);
+  private final PooledIds addressIds = new PooledIds("java_api.user_addresses_id_seq", ID_ALLOCATION_SIZE);
+
+  @Inject
+  public ReactiveUserRepository(Pool client) {
+    this.client = client;
+  }
+
+  public Uni<List<User>> findPage(long after, int limit, String email, String emailPrefix, String namePrefix) {
+    StringBuilder sql = new StringBuilder("SELECT " + USER_COLUMNS + " FROM java_api.users WHERE id > $1::bigint");
+    Tuple parameters = Tuple.of(after);
+    if (email != null) {
+      parameters.addString(email);
+      sql.append(" AND email = $").append(parameters.size());
+    }
+    if (emailPrefix != null) {
+      parameters.addString(LikePatterns.startsWith(emailPrefix));
+      sql.append(" AND email LIKE $").append(parameters.size()).append(" ESCAPE '").append(LikePatterns.ESCAPE).append("'");
+    }
+    if (namePrefix != null) {
+      parameters.addString(LikePatterns.startsWith(namePrefix));
+      sql.append(" AND name LIKE $").append(parameters.size()).append(" ESCAPE '").append(LikePatterns.ESCAPE).append("'");
+    }
+    parameters.addLong((long) limit);
+    sql.append(" ORDER BY id LIMIT $").append(parameters.size());
+    return client.preparedQuery(sql.toString())
+      .execute(parameters)
+      .map(rows -> toList(rows, ReactiveUserRepository::toUser));
+  }
+
+  public Uni<Optional<User>> findById(long id) {
+    return client.preparedQuery("SELECT " + USER_COLUMNS + " FROM java_api.users WHERE id = $1::bigint")
+      .execute(Tuple.of(id))
+      .map(rows -> first(rows, ReactiveUserRepository::toUser));
+  }
+
+  public Uni<List<User>> findByIds(List<Long> ids) {
+    return client.preparedQuery("SELECT " + USER_COLUMNS + " FROM java_api.users WHERE id = ANY($1::bigint[]) ORDER BY id")
+      .execute(Tuple.of(ids.toArray(new Long[0])))
+      .map(rows -> toList(rows, ReactiveUserRepository::toUser));
+  }
+
+  public Uni<User> insert(User user) {
+    return userIds.next(client).onItem().transformToUni(id -> client
+      .preparedQuery("INSERT INTO java_api.users (id, name, email) VALUES ($1, $2, $3) RETURNING " + USER_COLUMNS)
+      .execute(Tuple.of(id, user.name(), user.email()))
+      .map(rows -> toUser(rows.iterator().next())));
+  }
+
+  public Uni<Optional<User>> update(long id, User user, Long expectedVersion) {
+    return client.preparedQuery("UPDATE java_api.users SET name = $1, email = $2, version = version + 1"
+        + " WHERE id = $3::bigint AND ($4::bigint IS NULL OR version = $4::bigint) RETURNING " + USER_COLUMNS)
+      .execute(Tuple.of(user.name(), user.email(), id, expectedVersion))
+      .map(rows -> first(rows, ReactiveUserRepository::toUser));
+  }
+
+  public Uni<Optional<User>> patch(long id, Map<String, String> changes, Long expectedVersion) {
+    Tuple parameters = Tuple.of(id);
+    String sql = patchStatement("java_api.users", USER_PATCH_COLUMNS, changes, "id = $1::bigint", parameters,
+      expectedVersion, USER_COLUMNS);
+    return client.preparedQuery(sql)
+      .execute(parameters)
+      .map(rows -> first(rows, ReactiveUserRepository::toUser));
+  }
+
+  public Uni<Boolean> deleteById(long id, Long expectedVersion) {
+    return client.preparedQuery("DELETE FROM java_api.users WHERE id = $1::bigint AND ($2::bigint IS NULL OR version = $2::bigint)")
+      .execute(Tuple.of(id, expectedVersion))
+      .map(rows -> rows.rowCount() > 0);
+  }
+
+  /**
+   * Empty when the user does not exist, an empty list when it has no addresses.
+   */
+  public Uni<Optional<List<UserAddress>>> findAddresses(long userId) {
+    return findAddresses(client, userId, "");
+  }
+
+  private static Uni<Optional<List<UserAddress>>> findAddresses(SqlClient sqlClient, long userId, String lock) {
+    return sqlClient.preparedQuery("SELECT a.id, a.street, a.city, a.state, a.zip_code, u.id AS user_id, a.version"
+        + " FROM java_api.users u LEFT JOIN java_api.user_addresses a ON a.user_id = u.id"
+        + " WHERE u.id = $1::bigint ORDER BY a.id" + lock)
+      .execute(Tuple.of(userId))
+      .map(rows -> {
+        if (rows.size() == 0) {
+          return Optional.empty();
+        }
+        List<UserAddress> addresses = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+          if (row.getLong("id") != null) {
+            addresses.add(toUserAddress(row));
+          }
+        }
+        return Optional.of(addresses);
+      });
+  }
+
+  public Uni<List<UserAddress>> findAddressesByUserIds(List<Long> userIds) {
+    return client.preparedQuery("SELECT " + ADDRESS_COLUMNS + " FROM java_api.user_addresses WHERE user_id = ANY($1::bigint[]) ORDER BY id")
+      .execute(Tuple.of(userIds.toArray(new Long[0])))
+      .map(rows -> toList(rows, ReactiveUserRepository::toUserAddress));
+  }
+
+  public Uni<Optional<UserAddress>> findAddress(long userId, long addressId) {
+    return client.preparedQuery("SELECT " + ADDRESS_COLUMNS + " FROM java_api.user_addresses WHERE id = $1::bigint AND user_id = $2::bigint")
+      .execute(Tuple.of(addressId, userId))
+      .map(rows -> first(rows, ReactiveUserRepository::toUserAddress));
+  }
+
+  /**
+   * Inserts the address only if the user exists, so a missing user is an empty result rather than a foreign key error.
+   */
+  public Uni<Optional<UserAddress>> insertAddress(long userId, UserAddress address) {
+    return addressIds.next(client).onItem().transformToUni(id -> client
+      .preparedQuery("INSERT INTO java_api.user_addresses (id, street, city, state, zip_code, user_id)"
+        + " SELECT $1, $2, $3, $4, $5, id FROM java_api.users WHERE id = $6::bigint RETURNING " + ADDRESS_COLUMNS)
+      .execute(Tuple.of(id, address.street(), address.city(), address.state(), address.zipCode(), userId))
+      .map(rows -> first(rows, ReactiveUserRepository::toUserAddress)));
+  }
+
+  public Uni<Optional<UserAddress>> updateAddress(long userId, long addressId, UserAddress address, Long expectedVersion) {
+    return client.preparedQuery("UPDATE java_api.user_addresses SET street = $1, city = $2, state = $3, zip_code = $4,"
+        + " version = version + 1 WHERE id = $5::bigint AND user_id = $6::bigint AND ($7::bigint IS NULL OR version = $7::bigint)"
+        + " RETURNING " + ADDRESS_COLUMNS)
+      .execute(Tuple.from(Arrays.asList(address.street(), address.city(), address.state(), address.zipCode(), addressId,
+        userId, expectedVersion)))
+      .map(rows -> first(rows, ReactiveUserRepository::toUserAddress));
+  }
+
+  public Uni<Optional<UserAddress>> patchAddress(long userId, long addressId, Map<String, String> changes,
+                                                Long expectedVersion) {
+    Tuple parameters = Tuple.of(addressId, userId);
+    String sql = patchStatement("java_api.user_addresses", ADDRESS_PATCH_COLUMNS, changes,
+      "id = $1::bigint AND user_id = $2::bigint", parameters, expectedVersion, ADDRESS_COLUMNS);
+    return client.preparedQuery(sql)
+      .execute(parameters)
+      .map(rows -> first(rows, ReactiveUserRepository::toUserAddress));
+  }
+
+  public Uni<Boolean> deleteAddress(long userId, long addressId, Long expectedVersion) {
+    return client.preparedQuery("DELETE FROM java_api.user_addresses"
+        + " WHERE id = $1::bigint AND user_id = $2::bigint AND ($3::bigint IS NULL OR version = $3::bigint)")
+      .execute(Tuple.of(addressId, userId, expectedVersion))
+      .map(rows -> rows.rowCount() > 0);
+  }
+
+  /**
+   * Makes {@code addresses} the user's whole address book. The user row is locked while the current addresses are
+   * read and handed to {@code check}, which may throw to roll back; then one statement deletes the addresses left out,
+   * updates those whose fields changed and inserts those without an ID. Empty when the user does not exist.
+   */
+  public Uni<Optional<List<UserAddress>>> replaceAddresses(long userId, List<UserAddress> addresses,
+                                                          Consumer<List<UserAddress>> check) {
+    Long[] ids = new Long[addresses.size()];
+    Long[] newIds = new Long[addresses.size()];
+    String[] streets = new String[addresses.size()];
+    String[] cities = new String[addresses.size()];
+    String[] states = new String[addresses.size()];
+    String[] zipCodes = new String[addresses.size()];
+    for (int i = 0; i < addresses.size(); i++) {
+      UserAddress address = addresses.get(i);
+      ids[i] = address.id();
+      streets[i] = address.street();
+      cities[i] = address.city();
+      states[i] = address.state();
+      zipCodes[i] = address.zipCode();
+    }
+    int created = (int) addresses.stream().filter(address -> address.id() == null).count();
+    return client.withTransaction(connection -> findAddresses(connection, userId, " FOR UPDATE OF u")
+      .invoke(current -> current.ifPresent(check))
+      .onItem().transformToUni(current -> current.isEmpty() ? Uni.createFrom().item(Optional.<List<UserAddress>>empty())
+        : addressIds.next(connection, created).onItem().transformToUni(allocated -> {
+          for (int i = 0, next = 0; i < ids.length; i++) {
+            if (ids[i] == null) {
+              newIds[i] = allocated.get(next++);
+            }
+          }
+          return connection.preparedQuery(REPLACE_ADDRESSES)
+            .execute(Tuple.from(List.of(userId, ids, newIds, streets, cities, states, zipCodes)))
+            .map(rows -> Optional.of(toList(rows, ReactiveUserRepository::toUserAddress)));
+        })));
+  }
+
+  /**
+   * {@code UPDATE ... RETURNING} of only the changed columns; appends their values to {@code parameters}, which
+   * already holds the ones referenced by {@code where}.
+   */
+  private static String patchStatement(String table, Map<String, String> columns, Map<String, String> changes,
+                                       String where, Tuple parameters, Long expectedVersion, String returning) {
+    StringBuilder sql = new StringBuilder("UPDATE ").append(table).append(" SET version = version + 1");
+    changes.forEach((field, value) -> {
+      String column = columns.get(field);
+      if (column == null) {
+        throw new IllegalArgumentException(field + " cannot be patched");
+      }
+      parameters.addString(value);
+      sql.append(", ").append(column).append(" = $").append(parameters.size());
+    });
+    sql.append(" WHERE ").append(where);
+    if (expectedVersion != null) {
+      parameters.addLong(expectedVersion);
+      sql.append(" AND version = $").append(parameters.size());
+    }
+    return sql.append(" RETURNING ").append(returning).toString();
+  }
+
+  private static <T> List<T> toList(RowSet<Row> rows, Function<Row, T> mapper) {
+    List<T> result = new ArrayList<>(rows.size());
+    for (Row row : rows) {
+      result.add(mapper.apply(row));
+    }
+    return result;
+  }
+
+  private static <T> Optional<T> first(RowSet<Row> rows, Function<Row, T> mapper) {
+    var iterator = rows.iterator();
+    return iterator.hasNext() ? Optional.of(mapper.apply(iterator.next())) : Optional.empty();
+  }
+
+  private static User toUser(Row row) {
+    return new User(row.getLong("id"), row.getString("name"), row.getString("email"), row.getLong("version"));
+  }
+
+  private static UserAddress toUserAddress(Row row) {
+    return new UserAddress(row.getLong("id"), row.getString("street"), row.getString("city"), row.getString("state"),
+      row.getString("zip_code"), row.getLong("user_id"), row.getLong("version"));
+  }
+}
@@ -0,0 +1,96 @@
+package ca.bc.gov.nrs.api.v1.repository;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.agroal.DataSource;
+import io.quarkus.logging.Log;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.HibernateException;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Runs read-only queries on the {@code replica} datasource in a stateless session, outside the caller's transaction.
+ * Returns empty when routing is off, the replica is further behind than {@code api.replica.max-lag} or the query
+ * fails, so callers fall back to the primary.
+ */
+@ApplicationScoped
+public class ReadReplica {
+
+  private static final String LAG_QUERY = """
+    select case when not pg_is_in_recovery() or pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0
+      else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0) end""";
+
+  private final AgroalDataSource dataSource;
+  private final SessionFactory sessionFactory;
+  private final boolean enabled;
+  private final Duration maxLag;
+  private final long lagCheckIntervalNanos;
+  private volatile long nextLagCheck = System.nanoTime();
+  private volatile boolean usable = true;
+
+  @Inject
+  public ReadReplica(@DataSource("replica") AgroalDataSource dataSource, SessionFactory sessionFactory,
+                     @ConfigProperty(name = "api.replica.enabled", defaultValue = "false") boolean enabled,
+                     @ConfigProperty(name = "api.replica.max-lag", defaultValue = "5S") Duration maxLag,
+                     @ConfigProperty(name = "api.replica.lag-check-interval", defaultValue = "1S") Duration lagCheckInterval) {
+    this.dataSource = dataSource;
+    this.sessionFactory = sessionFactory;
+    this.enabled = enabled;
+    this.maxLag = maxLag;
+    this.lagCheckIntervalNanos = lagCheckInterval.toNanos();
+  }
+
+  public <T> Optional<T> read(Function<StatelessSession, T> query) {
+    if (!enabled || !isUsable()) {
+      return Optional.empty();
+    }
+    try (Connection connection = dataSource.getConnection()) {
+      connection.setReadOnly(true);
+      connection.setAutoCommit(false);
+      try (StatelessSession session = sessionFactory.withStatelessOptions().connection(connection).openStatelessSession()) {
+        T result = query.apply(session);
+        connection.commit();
+        return Optional.of(result);
+      }
+    } catch (SQLException | HibernateException e) {
+      Log.warnf(e, "Read replica query failed, using the primary until the next lag check");
+      usable = false;
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Re-measures replay lag at most once per {@code api.replica.lag-check-interval}; in between the last answer stands.
+   */
+  private boolean isUsable() {
+    long now = System.nanoTime();
+    if (now - nextLagCheck < 0) {
+      return usable;
+    }
+    nextLagCheck = now + lagCheckIntervalNanos;
+    try (Connection connection = dataSource.getConnection();
+         Statement statement = connection.createStatement();
+         ResultSet lag = statement.executeQuery(LAG_QUERY)) {
+      lag.next();
+      boolean caughtUp = lag.getDouble(1) * 1000 <= maxLag.toMillis();
+      if (!caughtUp) {
+        Log.warnf("Read replica is more than %s behind, using the primary", maxLag);
+      }
+      usable = caughtUp;
+    } catch (SQLException e) {
+      Log.warnf(e, "Read replica lag check failed, using the primary");
+      usable = false;
+    }
+    return usable;
+  }
+}
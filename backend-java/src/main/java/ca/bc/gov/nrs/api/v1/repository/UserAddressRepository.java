@@ -1,9 +1,113 @@
 package ca.bc.gov.nrs.api.v1.repository;
 
 import ca.bc.gov.nrs.api.v1.entity.UserAddressEntity;
+import ca.bc.gov.nrs.api.v1.structs.UserAddress;
+import ca.bc.gov.nrs.api.v1.tracing.Traced;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.Query;
+import org.hibernate.SharedSessionContract;
+import org.hibernate.query.SelectionQuery;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Traced
 @ApplicationScoped
 public class UserAddressRepository implements PanacheRepository<UserAddressEntity> {
+
+  private static final String SELECT_ADDRESS = "select new " + UserAddress.class.getName()
+    + "(id, street, city, state, zipCode, userEntity.id, version) from UserAddress";
+  private static final Map<String, String> PATCH_COLUMNS = Map.of(
+    "street", "street", "city", "city", "state", "state", "zipCode", "zip_code");
+
+  public Optional<UserAddress> findByIdAndUserId(long id, long userId) {
+    return getSession().createSelectionQuery(SELECT_ADDRESS + " where id = :id and userEntity.id = :userId", UserAddress.class)
+      .setParameter("id", id)
+      .setParameter("userId", userId)
+      .uniqueResultOptional();
+  }
+
+  /**
+   * Addresses of several users in one {@code IN} query, ordered by ID.
+   */
+  public List<UserAddress> findByUserIds(Collection<Long> userIds) {
+    return findByUserIds(getSession(), userIds);
+  }
+
+  public List<UserAddress> findByUserIds(SharedSessionContract session, Collection<Long> userIds) {
+    return session.createSelectionQuery(SELECT_ADDRESS + " where userEntity.id in :userIds order by id", UserAddress.class)
+      .setParameter("userIds", userIds)
+      .list();
+  }
+
+  /**
+   * Keyset page of addresses across all users matching every non-null filter.
+   */
+  public List<UserAddress> findPage(long after, int limit, String city, String state, String zipCode) {
+    return findPage(getSession(), after, limit, city, state, zipCode);
+  }
+
+  public List<UserAddress> findPage(SharedSessionContract session, long after, int limit, String city, String state,
+                                    String zipCode) {
+    StringBuilder query = new StringBuilder(SELECT_ADDRESS).append(" where id > :after");
+    Map<String, Object> parameters = new HashMap<>();
+    parameters.put("after", after);
+    if (city != null) {
+      query.append(" and city = :city");
+      parameters.put("city", city);
+    }
+    if (state != null) {
+      query.append(" and state = :state");
+      parameters.put("state", state);
+    }
+    if (zipCode != null) {
+      query.append(" and zipCode = :zipCode");
+      parameters.put("zipCode", zipCode);
+    }
+    SelectionQuery<UserAddress> selection = session.createSelectionQuery(query.append(" order by id").toString(), UserAddress.class);
+    parameters.forEach(selection::setParameter);
+    return selection.setMaxResults(limit).list();
+  }
+
+  /**
+   * Writes every field, bumps the row version and returns the row with its new version, all in one native
+   * {@code UPDATE ... RETURNING}; when {@code expectedVersion} is given the row only matches at that version. A bulk HQL
+   * update would make Hibernate evict the whole address and addresses-collection regions, so callers evict just this
+   * address instead.
+   */
+  public Optional<UserAddress> updateByIdAndUserId(long id, long userId, UserAddress address, Long expectedVersion) {
+    Map<String, String> fields = Map.of("street", address.street(), "city", address.city(), "state", address.state(),
+      "zipCode", address.zipCode());
+    return patchByIdAndUserId(id, userId, fields, expectedVersion);
+  }
+
+  /**
+   * Single {@code UPDATE ... RETURNING} of the given fields; see {@link UserRepository#patch}.
+   */
+  public Optional<UserAddress> patchByIdAndUserId(long id, long userId, Map<String, String> changes, Long expectedVersion) {
+    List<Object[]> rows = NativePatch.execute(getEntityManager(), "java_api.user_addresses", PATCH_COLUMNS, changes,
+      "id = :id and user_id = :userId", Map.of("id", id, "userId", userId), expectedVersion,
+      "id, street, city, state, zip_code, user_id, version");
+    return rows.stream().findFirst()
+      .map(row -> new UserAddress(((Number) row[0]).longValue(), (String) row[1], (String) row[2], (String) row[3],
+        (String) row[4], ((Number) row[5]).longValue(), ((Number) row[6]).longValue()));
+  }
+
+  /**
+   * Native {@code DELETE ... RETURNING}, for the same reason as {@link #updateByIdAndUserId}; callers evict the address
+   * and the user's addresses collection.
+   */
+  public boolean deleteByIdAndUserId(long id, long userId, Long expectedVersion) {
+    Query query = getEntityManager().createNativeQuery("delete from java_api.user_addresses where id = :id and user_id = :userId"
+      + (expectedVersion == null ? "" : " and version = :expectedVersion") + " returning id");
+    query.setParameter("id", id).setParameter("userId", userId);
+    if (expectedVersion != null) {
+      query.setParameter("expectedVersion", expectedVersion);
+    }
+    return !query.getResultList().isEmpty();
+  }
 }
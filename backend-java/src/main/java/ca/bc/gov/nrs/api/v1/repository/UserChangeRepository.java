@@ -0,0 +1,97 @@
+package ca.bc.gov.nrs.api.v1.repository;
+
+import ca.bc.gov.nrs.api.v1.structs.UserChange;
+import ca.bc.gov.nrs.api.v1.structs.UserChangePosition;
+import io.agroal.api.AgroalDataSource;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the {@code user_changes} outbox that triggers on {@code users} and {@code user_addresses} fill. Only changes
+ * from transactions older than every transaction still running are returned, so a change can never appear behind a
+ * position that has already been read.
+ */
+@ApplicationScoped
+public class UserChangeRepository {
+
+  private static final String SETTLED = "tx_id < pg_snapshot_xmin(pg_current_snapshot())::text::bigint";
+  private static final String FIND_AFTER = "select tx_id, id, entity, operation, entity_id, user_id, data::text, changed_at"
+    + " from java_api.user_changes where (tx_id, id) > (?, ?) and (tx_id, id) <= (?, ?) and " + SETTLED
+    + " order by tx_id, id limit ?";
+  private static final String FIND_HEAD = "select tx_id, id from java_api.user_changes where " + SETTLED
+    + " order by tx_id desc, id desc limit 1";
+  private static final String EXISTS = "select 1 from java_api.user_changes where tx_id = ? and id = ?";
+  private static final String DELETE_BEFORE = "delete from java_api.user_changes where changed_at < ?";
+
+  private final AgroalDataSource dataSource;
+
+  @Inject
+  public UserChangeRepository(AgroalDataSource dataSource) {
+    this.dataSource = dataSource;
+  }
+
+  /**
+   * Changes after {@code after} up to and including {@code upTo}, in feed order.
+   */
+  public List<UserChange> findAfter(UserChangePosition after, UserChangePosition upTo, int limit) throws SQLException {
+    try (Connection connection = dataSource.getConnection();
+         PreparedStatement statement = connection.prepareStatement(FIND_AFTER)) {
+      statement.setLong(1, after.txId());
+      statement.setLong(2, after.id());
+      statement.setLong(3, upTo.txId());
+      statement.setLong(4, upTo.id());
+      statement.setInt(5, limit);
+      List<UserChange> changes = new ArrayList<>();
+      try (ResultSet rows = statement.executeQuery()) {
+        while (rows.next()) {
+          changes.add(new UserChange(new UserChangePosition(rows.getLong(1), rows.getLong(2)).toString(),
+            rows.getString(3), rows.getString(4), rows.getLong(5), rows.getLong(6), rows.getString(7),
+            rows.getTimestamp(8).toInstant()));
+        }
+      }
+      return changes;
+    }
+  }
+
+  /**
+   * The position of the newest change that can be read, or {@link UserChangePosition#START} when there is none.
+   */
+  public UserChangePosition findHead() throws SQLException {
+    try (Connection connection = dataSource.getConnection();
+         PreparedStatement statement = connection.prepareStatement(FIND_HEAD);
+         ResultSet rows = statement.executeQuery()) {
+      return rows.next() ? new UserChangePosition(rows.getLong(1), rows.getLong(2)) : UserChangePosition.START;
+    }
+  }
+
+  /**
+   * Whether the change at {@code position} is still kept; positions only ever name rows, so a missing one was purged.
+   */
+  public boolean exists(UserChangePosition position) throws SQLException {
+    try (Connection connection = dataSource.getConnection();
+         PreparedStatement statement = connection.prepareStatement(EXISTS)) {
+      statement.setLong(1, position.txId());
+      statement.setLong(2, position.id());
+      try (ResultSet rows = statement.executeQuery()) {
+        return rows.next();
+      }
+    }
+  }
+
+  public int deleteBefore(Instant changedAt) throws SQLException {
+    try (Connection connection = dataSource.getConnection();
+         PreparedStatement statement = connection.prepareStatement(DELETE_BEFORE)) {
+      statement.setTimestamp(1, Timestamp.from(changedAt));
+      return statement.executeUpdate();
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package ca.bc.gov.nrs.api.v1.repository;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.agroal.DataSource;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.postgresql.PGConnection;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Copies users and their addresses straight from PostgreSQL to an output stream with {@code COPY ... TO STDOUT}. Rows
+ * are never mapped to objects, and the driver writes each buffer it reads, so the export holds only a buffer in memory
+ * and runs as fast as the client reads.
+ * <p>
+ * Exports run on the {@code replica} datasource, so a long copy holds a connection from that small pool rather than
+ * one of the primary's. Without a replica that pool still points at the primary host; with one, an export may trail
+ * the primary by the replica's replay lag.
+ */
+@ApplicationScoped
+public class UserExportRepository {
+
+  /**
+   * One row per address, or one row with empty address columns for a user without any.
+   */
+  private static final String COPY_CSV = """
+    copy (select u.id as user_id, u.name, u.email, a.id as address_id, a.street, a.city, a.state, a.zip_code
+          from java_api.users u left join java_api.user_addresses a on a.user_id = u.id
+          order by u.id, a.id)
+    to stdout with (format csv, header)""";
+  /**
+   * One JSON object per user with its addresses nested, as {@code expand=addresses} returns them. CSV with control
+   * characters for quote and delimiter passes each JSON line through unescaped; JSON encodes control characters itself.
+   */
+  private static final String COPY_NDJSON = """
+    copy (select json_build_object('id', u.id, 'name', u.name, 'email', u.email, 'addresses',
+                   coalesce(json_agg(json_build_object('id', a.id, 'street', a.street, 'city', a.city, 'state', a.state,
+                     'zipCode', a.zip_code, 'userId', a.user_id) order by a.id)
+                     filter (where a.id is not null), '[]'::json))
+          from java_api.users u left join java_api.user_addresses a on a.user_id = u.id
+          group by u.id
+          order by u.id)
+    to stdout with (format csv, quote e'\\x01', delimiter e'\\x02')""";
+
+  private final AgroalDataSource dataSource;
+
+  @Inject
+  public UserExportRepository(@DataSource("replica") AgroalDataSource dataSource) {
+    this.dataSource = dataSource;
+  }
+
+  public long copyCsv(OutputStream output) throws IOException {
+    return copy(COPY_CSV, output);
+  }
+
+  public long copyNdjson(OutputStream output) throws IOException {
+    return copy(COPY_NDJSON, output);
+  }
+
+  /**
+   * Database failures surface as {@link IOException}: by then part of the body has usually been sent, so the response
+   * can only be aborted.
+   */
+  private long copy(String sql, OutputStream output) throws IOException {
+    try (Connection connection = dataSource.getConnection()) {
+      return connection.unwrap(PGConnection.class).getCopyAPI().copyOut(sql, output);
+    } catch (SQLException e) {
+      throw new IOException("Export failed", e);
+    }
+  }
+}
@@ -1,9 +1,121 @@
 package ca.bc.gov.nrs.api.v1.repository;
 
 import ca.bc.gov.nrs.api.v1.entity.UserEntity;
+import ca.bc.gov.nrs.api.v1.structs.User;
+import ca.bc.gov.nrs.api.v1.tracing.Traced;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.Query;
+import org.hibernate.SharedSessionContract;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.query.SelectionQuery;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@Traced
 @ApplicationScoped
 public class UserRepository implements PanacheRepository<UserEntity> {
+
+  private static final String SELECT_USER = "select new " + User.class.getName() + "(id, name, email, version) from users";
+  private static final Map<String, String> PATCH_COLUMNS = Map.of("name", "name", "email", "email");
+
+  public Optional<User> findRecordById(long id) {
+    return getSession().createSelectionQuery(SELECT_USER + " where id = :id", User.class)
+      .setParameter("id", id)
+      .uniqueResultOptional();
+  }
+
+  /**
+   * Users with any of the given IDs in one statement, ordered by ID. The IDs are bound as one array, so the statement
+   * text is the same however many there are.
+   */
+  public List<User> findRecordsByIds(Collection<Long> ids) {
+    return findRecordsByIds(getSession(), ids);
+  }
+
+  public List<User> findRecordsByIds(SharedSessionContract session, Collection<Long> ids) {
+    List<Object[]> rows = session.createNativeQuery(
+        "select id, name, email, version from java_api.users where id = any(:ids) order by id", Object[].class)
+      .setParameter("ids", ids.toArray(Long[]::new))
+      .getResultList();
+    return rows.stream()
+      .map(row -> new User(((Number) row[0]).longValue(), (String) row[1], (String) row[2], ((Number) row[3]).longValue()))
+      .toList();
+  }
+
+  /**
+   * Keyset page over the primary key, projected straight into {@link User} so no entity is put in the persistence context.
+   * Null filters are ignored; prefixes are matched literally and case-sensitively so the pattern indexes apply.
+   */
+  public List<User> findPage(long after, int limit, String email, String emailPrefix, String namePrefix) {
+    return findPage(getSession(), after, limit, email, emailPrefix, namePrefix);
+  }
+
+  public List<User> findPage(SharedSessionContract session, long after, int limit, String email, String emailPrefix,
+                             String namePrefix) {
+    StringBuilder query = new StringBuilder(SELECT_USER).append(" where id > :after");
+    Map<String, Object> parameters = new HashMap<>();
+    parameters.put("after", after);
+    if (email != null) {
+      query.append(" and email = :email");
+      parameters.put("email", email);
+    }
+    if (emailPrefix != null) {
+      query.append(" and email like :emailPrefix escape '").append(LikePatterns.ESCAPE).append("'");
+      parameters.put("emailPrefix", LikePatterns.startsWith(emailPrefix));
+    }
+    if (namePrefix != null) {
+      query.append(" and name like :namePrefix escape '").append(LikePatterns.ESCAPE).append("'");
+      parameters.put("namePrefix", LikePatterns.startsWith(namePrefix));
+    }
+    SelectionQuery<User> selection = session.createSelectionQuery(query.append(" order by id").toString(), User.class);
+    parameters.forEach(selection::setParameter);
+    return selection.setMaxResults(limit).list();
+  }
+
+  /**
+   * Writes only the given fields, bumps the version and returns the row, all in one {@code UPDATE ... RETURNING}. The
+   * statement is native, so callers must evict the user from the second-level cache.
+   */
+  public Optional<User> patch(long id, Map<String, String> changes, Long expectedVersion) {
+    List<Object[]> rows = NativePatch.execute(getEntityManager(), "java_api.users", PATCH_COLUMNS, changes,
+      "id = :id", Map.of("id", id), expectedVersion, "id, name, email, version");
+    return rows.stream().findFirst()
+      .map(row -> new User(((Number) row[0]).longValue(), (String) row[1], (String) row[2], ((Number) row[3]).longValue()));
+  }
+
+  /**
+   * Single native {@code DELETE ... RETURNING}; the foreign key's ON DELETE CASCADE removes the addresses without
+   * loading any of them. Unlike a bulk HQL delete it leaves the second-level cache regions alone, so callers evict the
+   * user and its addresses collection.
+   */
+  public boolean deleteById(long id, Long expectedVersion) {
+    Query query = getEntityManager().createNativeQuery("delete from java_api.users where id = :id"
+      + (expectedVersion == null ? "" : " and version = :expectedVersion") + " returning id");
+    query.setParameter("id", id);
+    if (expectedVersion != null) {
+      query.setParameter("expectedVersion", expectedVersion);
+    }
+    return !query.getResultList().isEmpty();
+  }
+
+  /**
+   * The user with its addresses fetched in the same statement, which also puts both into the second-level cache.
+   */
+  public Optional<UserEntity> findByIdWithAddresses(long id) {
+    return find("from users u left join fetch u.addresses where u.id = ?1", id).singleResultOptional();
+  }
+
+  /**
+   * Forward-only cursor over all users ordered by ID; the stream must be consumed and closed inside a transaction.
+   */
+  public Stream<User> streamAll(int fetchSize) {
+    return findAll(Sort.by("id")).project(User.class).withHint(HibernateHints.HINT_FETCH_SIZE, fetchSize).stream();
+  }
 }
@@ -0,0 +1,11 @@
+package ca.bc.gov.nrs.api.v1.service;
+
+/**
+ * A replacement address list refers to an address the user does not have, or to the same address twice.
+ */
+public class InvalidAddressesException extends RuntimeException {
+
+  public InvalidAddressesException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,171 @@
+package ca.bc.gov.nrs.api.v1.service;
+
+import ca.bc.gov.nrs.api.v1.repository.ReactiveUserRepository;
+import ca.bc.gov.nrs.api.v1.structs.User;
+import ca.bc.gov.nrs.api.v1.structs.UserAddress;
+import ca.bc.gov.nrs.api.v1.structs.UserWithAddresses;
+import io.quarkus.arc.profile.IfBuildProfile;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.OptimisticLockException;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Non-blocking counterpart of {@link UserService} for the {@code reactive} build profile. Each write is a single
+ * statement, so no transaction is needed to keep the version check and the change together.
+ */
+@ApplicationScoped
+@IfBuildProfile("reactive")
+public class ReactiveUserService {
+
+  private final ReactiveUserRepository repository;
+
+  @Inject
+  public ReactiveUserService(ReactiveUserRepository repository) {
+    this.repository = repository;
+  }
+
+  public Uni<List<User>> findPage(long after, int limit, String email, String emailPrefix, String namePrefix) {
+    return repository.findPage(after, limit, email, emailPrefix, namePrefix);
+  }
+
+  public Uni<Optional<User>> findUserById(long id) {
+    return repository.findById(id);
+  }
+
+  public Uni<List<User>> findByIds(List<Long> ids) {
+    return repository.findByIds(ids);
+  }
+
+  public Uni<User> save(User user) {
+    return repository.insert(user);
+  }
+
+  public Uni<Optional<User>> update(long id, User user, Long expectedVersion) {
+    return repository.update(id, user, expectedVersion)
+      .call(updated -> updated.isPresent() ? Uni.createFrom().voidItem() : rejectIfStaleUser(id, expectedVersion));
+  }
+
+  /**
+   * Applies the changed fields in one statement; an empty patch only reads the user.
+   */
+  public Uni<Optional<User>> patch(long id, Map<String, String> changes, Long expectedVersion) {
+    if (changes.isEmpty()) {
+      return repository.findById(id).invoke(user -> user.ifPresent(current -> checkVersion(current.version(), expectedVersion)));
+    }
+    return repository.patch(id, changes, expectedVersion)
+      .call(patched -> patched.isPresent() ? Uni.createFrom().voidItem() : rejectIfStaleUser(id, expectedVersion));
+  }
+
+  public Uni<Boolean> deleteById(long id, Long expectedVersion) {
+    return repository.deleteById(id, expectedVersion)
+      .call(deleted -> deleted ? Uni.createFrom().voidItem() : rejectIfStaleUser(id, expectedVersion));
+  }
+
+  public Uni<Optional<List<UserAddress>>> findUserAddresses(long userId) {
+    return repository.findAddresses(userId);
+  }
+
+  /**
+   * Nests each user's addresses, loading them for the whole list with one query.
+   */
+  public Uni<List<UserWithAddresses>> withAddresses(List<User> users) {
+    if (users.isEmpty()) {
+      return Uni.createFrom().item(List.of());
+    }
+    return repository.findAddressesByUserIds(users.stream().map(User::id).toList()).map(addresses -> {
+      Map<Long, List<UserAddress>> addressesByUser = addresses.stream().collect(Collectors.groupingBy(UserAddress::userId));
+      return users.stream()
+        .map(user -> UserWithAddresses.of(user, addressesByUser.getOrDefault(user.id(), List.of())))
+        .toList();
+    });
+  }
+
+  public Uni<Optional<UserAddress>> findUserAddress(long userId, long addressId) {
+    return repository.findAddress(userId, addressId);
+  }
+
+  public Uni<Optional<UserAddress>> saveUserAddress(long userId, UserAddress address) {
+    return repository.insertAddress(userId, address);
+  }
+
+  public Uni<Optional<UserAddress>> updateUserAddress(long userId, long addressId, UserAddress address,
+                                                      Long expectedVersion) {
+    return repository.updateAddress(userId, addressId, address, expectedVersion)
+      .call(updated -> updated.isPresent() ? Uni.createFrom().voidItem()
+        : rejectIfStaleAddress(userId, addressId, expectedVersion));
+  }
+
+  public Uni<Optional<UserAddress>> patchUserAddress(long userId, long addressId, Map<String, String> changes,
+                                                     Long expectedVersion) {
+    if (changes.isEmpty()) {
+      return repository.findAddress(userId, addressId)
+        .invoke(address -> address.ifPresent(current -> checkVersion(current.version(), expectedVersion)));
+    }
+    return repository.patchAddress(userId, addressId, changes, expectedVersion)
+      .call(patched -> patched.isPresent() ? Uni.createFrom().voidItem()
+        : rejectIfStaleAddress(userId, addressId, expectedVersion));
+  }
+
+  /**
+   * Makes {@code addresses} the user's whole address book, failing with an {@link OptimisticLockException} when
+   * {@code precondition} rejects the current addresses and with an {@link InvalidAddressesException} when an ID is not
+   * a distinct address of the user.
+   */
+  public Uni<Optional<List<UserAddress>>> replaceUserAddresses(long userId, List<UserAddress> addresses,
+                                                               Predicate<List<UserAddress>> precondition) {
+    return repository.replaceAddresses(userId, addresses, current -> {
+      if (!precondition.test(current)) {
+        throw new OptimisticLockException("Addresses of user " + userId + " changed since they were read");
+      }
+      Set<Long> currentIds = new HashSet<>(current.stream().map(UserAddress::id).toList());
+      Set<Long> kept = new HashSet<>();
+      for (UserAddress address : addresses) {
+        if (address.id() != null && (!currentIds.contains(address.id()) || !kept.add(address.id()))) {
+          throw new InvalidAddressesException("Address " + address.id() + " is not a distinct address of user " + userId);
+        }
+      }
+    });
+  }
+
+  public Uni<Boolean> deleteUserAddress(long userId, long addressId, Long expectedVersion) {
+    return repository.deleteAddress(userId, addressId, expectedVersion)
+      .call(deleted -> deleted ? Uni.createFrom().voidItem()
+        : rejectIfStaleAddress(userId, addressId, expectedVersion));
+  }
+
+  /**
+   * A conditional write that matched no row either hit a missing user or a stale version; only the latter fails.
+   */
+  private Uni<Void> rejectIfStaleUser(long id, Long expectedVersion) {
+    if (expectedVersion == null) {
+      return Uni.createFrom().voidItem();
+    }
+    return repository.findById(id).onItem().transformToUni(user -> user.isPresent()
+      ? Uni.createFrom().failure(new OptimisticLockException("User " + id + " is no longer at version " + expectedVersion))
+      : Uni.createFrom().voidItem());
+  }
+
+  private Uni<Void> rejectIfStaleAddress(long userId, long addressId, Long expectedVersion) {
+    if (expectedVersion == null) {
+      return Uni.createFrom().voidItem();
+    }
+    return repository.findAddress(userId, addressId).onItem().transformToUni(address -> address.isPresent()
+      ? Uni.createFrom().failure(new OptimisticLockException("Address " + addressId + " is no longer at version " + expectedVersion))
+      : Uni.createFrom().voidItem());
+  }
+
+  private static void checkVersion(Long currentVersion, Long expectedVersion) {
+    if (expectedVersion != null && !expectedVersion.equals(currentVersion)) {
+      throw new OptimisticLockException("Expected version " + expectedVersion + " but found " + currentVersion);
+    }
+  }
+}
@@ -0,0 +1,191 @@
+package ca.bc.gov.nrs.api.v1.service;
+
+import ca.bc.gov.nrs.api.v1.repository.UserChangeRepository;
+import ca.bc.gov.nrs.api.v1.structs.UserChange;
+import ca.bc.gov.nrs.api.v1.structs.UserChangePosition;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import io.smallrye.mutiny.subscription.MultiEmitter;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Fans the {@code user_changes} outbox out to any number of subscribers from one poller per instance, so consumers
+ * get deltas without each of them querying the database. A subscriber that passes a position first replays what it
+ * missed, then continues with live changes; one that falls more than {@code api.changes.subscriber-buffer} changes
+ * behind is failed and can resume from its last position. Changes are kept for {@code api.changes.retention}; a
+ * position older than that can no longer be resumed from, see {@link #canResumeAfter}.
+ */
+@ApplicationScoped
+public class UserChangeFeed {
+
+  private static final UserChangePosition END = new UserChangePosition(Long.MAX_VALUE, Long.MAX_VALUE);
+  private static final Duration PURGE_INTERVAL = Duration.ofHours(1);
+
+  private final UserChangeRepository userChangeRepository;
+  private final Duration pollInterval;
+  private final int batchSize;
+  private final Duration retention;
+  private final int subscriberBuffer;
+  private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+  private volatile UserChangePosition head = UserChangePosition.START;
+  private volatile boolean running;
+  private Thread poller;
+
+  @Inject
+  public UserChangeFeed(UserChangeRepository userChangeRepository,
+                        @ConfigProperty(name = "api.changes.poll-interval", defaultValue = "500ms") Duration pollInterval,
+                        @ConfigProperty(name = "api.changes.batch-size", defaultValue = "500") int batchSize,
+                        @ConfigProperty(name = "api.changes.retention", defaultValue = "7D") Duration retention,
+                        @ConfigProperty(name = "api.changes.subscriber-buffer", defaultValue = "1000") int subscriberBuffer) {
+    this.userChangeRepository = userChangeRepository;
+    this.pollInterval = pollInterval;
+    this.batchSize = batchSize;
+    this.retention = retention;
+    this.subscriberBuffer = subscriberBuffer;
+  }
+
+  void start(@Observes StartupEvent event) throws SQLException {
+    head = userChangeRepository.findHead();
+    running = true;
+    poller = Thread.ofVirtual().name("user-change-feed").start(this::poll);
+  }
+
+  void stop(@Observes ShutdownEvent event) {
+    running = false;
+    if (poller != null) {
+      poller.interrupt();
+    }
+  }
+
+  /**
+   * Whether every change after {@code position} is still kept. Once the change at the position itself has been purged,
+   * later ones may have been too, and replaying what is left would skip them silently.
+   */
+  public boolean canResumeAfter(UserChangePosition position) throws SQLException {
+    return userChangeRepository.exists(position);
+  }
+
+  /**
+   * Changes after {@code after}, or from now on when it is empty.
+   */
+  public Multi<UserChange> subscribe(Optional<UserChangePosition> after) {
+    return Multi.createFrom().<UserChange>emitter(emitter -> {
+      Subscription subscription = new Subscription(emitter);
+      UserChangePosition replayUpTo;
+      synchronized (this) {
+        replayUpTo = head;
+        subscriptions.add(subscription);
+      }
+      emitter.onTermination(() -> subscriptions.remove(subscription));
+      if (after.isEmpty()) {
+        subscription.goLive();
+        return;
+      }
+      Infrastructure.getDefaultWorkerPool().execute(() -> {
+        try {
+          replay(after.get(), replayUpTo, emitter);
+          subscription.goLive();
+        } catch (SQLException e) {
+          emitter.fail(e);
+        }
+      });
+    }, subscriberBuffer);
+  }
+
+  private void replay(UserChangePosition after, UserChangePosition upTo, MultiEmitter<? super UserChange> emitter)
+    throws SQLException {
+    UserChangePosition position = after;
+    List<UserChange> changes;
+    do {
+      changes = userChangeRepository.findAfter(position, upTo, batchSize);
+      changes.forEach(emitter::emit);
+      if (!changes.isEmpty()) {
+        position = UserChangePosition.parse(changes.get(changes.size() - 1).position());
+      }
+    } while (changes.size() == batchSize && !emitter.isCancelled());
+  }
+
+  private void poll() {
+    Instant nextPurge = Instant.now();
+    while (running) {
+      try {
+        List<UserChange> changes = userChangeRepository.findAfter(head, END, batchSize);
+        if (!changes.isEmpty()) {
+          publish(changes);
+        }
+        if (Instant.now().isAfter(nextPurge)) {
+          userChangeRepository.deleteBefore(Instant.now().minus(retention));
+          nextPurge = Instant.now().plus(PURGE_INTERVAL);
+        }
+        if (changes.size() < batchSize) {
+          Thread.sleep(pollInterval);
+        }
+      } catch (SQLException e) {
+        Log.warnf(e, "Reading user changes failed, retrying in %s", pollInterval);
+        if (!sleep()) {
+          return;
+        }
+      } catch (InterruptedException e) {
+        return;
+      }
+    }
+  }
+
+  private boolean sleep() {
+    try {
+      Thread.sleep(pollInterval);
+      return true;
+    } catch (InterruptedException e) {
+      return false;
+    }
+  }
+
+  private synchronized void publish(List<UserChange> changes) {
+    subscriptions.forEach(subscription -> subscription.publish(changes));
+    head = UserChangePosition.parse(changes.get(changes.size() - 1).position());
+  }
+
+  /**
+   * Holds live changes back while the subscriber is still replaying; those changes all come after the replayed ones.
+   */
+  private final class Subscription {
+
+    private final MultiEmitter<? super UserChange> emitter;
+    private final List<UserChange> pending = new ArrayList<>();
+    private boolean live;
+
+    Subscription(MultiEmitter<? super UserChange> emitter) {
+      this.emitter = emitter;
+    }
+
+    void publish(List<UserChange> changes) {
+      if (live) {
+        changes.forEach(emitter::emit);
+      } else {
+        pending.addAll(changes);
+      }
+    }
+
+    void goLive() {
+      synchronized (UserChangeFeed.this) {
+        pending.forEach(emitter::emit);
+        pending.clear();
+        live = true;
+      }
+    }
+  }
+}
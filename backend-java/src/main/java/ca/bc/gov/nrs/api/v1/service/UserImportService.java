@@ -0,0 +1,128 @@
+package ca.bc.gov.nrs.api.v1.service;
+
+import ca.bc.gov.nrs.api.v1.entity.UserEntity;
+import ca.bc.gov.nrs.api.v1.structs.User;
+import ca.bc.gov.nrs.api.v1.structs.UserImportResult;
+import ca.bc.gov.nrs.api.v1.structs.UserImportSummary;
+import ca.bc.gov.nrs.api.v1.tracing.Traced;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.exception.ConstraintViolationException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Creates users in chunks, each chunk in its own transaction and written with JDBC batching. When a chunk fails to
+ * commit its users are retried one by one, so a bad row only rejects itself. Malformed JSON ends the import: users
+ * read before it are still saved, and the summary rejects the user at the failing position.
+ */
+@Traced
+@ApplicationScoped
+public class UserImportService {
+
+  private final UserService userService;
+  private final Validator validator;
+  private final int chunkSize;
+
+  @Inject
+  public UserImportService(UserService userService, Validator validator,
+                           @ConfigProperty(name = "api.users.import.chunk-size", defaultValue = "500") int chunkSize) {
+    this.userService = userService;
+    this.validator = validator;
+    this.chunkSize = chunkSize;
+  }
+
+  public UserImportSummary importUsers(MappingIterator<User> users) throws IOException {
+    List<UserImportResult> results = new ArrayList<>();
+    List<PendingUser> chunk = new ArrayList<>(chunkSize);
+    int index = 0;
+    while (true) {
+      User user;
+      try {
+        if (!users.hasNextValue()) {
+          break;
+        }
+        user = users.nextValue();
+      } catch (JsonProcessingException e) {
+        // The parser cannot resynchronize after malformed input, so nothing past this point is read
+        results.add(UserImportResult.rejected(index, List.of("Payload is not valid JSON from here on: " + e.getOriginalMessage())));
+        break;
+      }
+      List<String> errors = validate(user);
+      if (errors.isEmpty()) {
+        chunk.add(new PendingUser(index, user));
+      } else {
+        results.add(UserImportResult.rejected(index, errors));
+      }
+      index++;
+      if (chunk.size() == chunkSize) {
+        results.addAll(insertChunk(chunk));
+        chunk.clear();
+      }
+    }
+    if (!chunk.isEmpty()) {
+      results.addAll(insertChunk(chunk));
+    }
+    results.sort((left, right) -> Integer.compare(left.index(), right.index()));
+    return UserImportSummary.of(results);
+  }
+
+  private List<String> validate(User user) {
+    if (user == null) {
+      return List.of("User cannot be null");
+    }
+    Set<ConstraintViolation<User>> violations = validator.validate(user);
+    return violations.stream().map(ConstraintViolation::getMessage).sorted().toList();
+  }
+
+  private List<UserImportResult> insertChunk(List<PendingUser> chunk) {
+    try {
+      return QuarkusTransaction.requiringNew().call(() -> {
+        List<UserImportResult> created = chunk.stream().map(this::persist).toList();
+        userService.flush();
+        return created;
+      });
+    } catch (RuntimeException e) {
+      return chunk.stream().map(this::insertOne).toList();
+    }
+  }
+
+  private UserImportResult insertOne(PendingUser pending) {
+    try {
+      return QuarkusTransaction.requiringNew().call(() -> {
+        UserImportResult created = persist(pending);
+        userService.flush();
+        return created;
+      });
+    } catch (RuntimeException e) {
+      return UserImportResult.rejected(pending.index(), List.of(describe(e)));
+    }
+  }
+
+  private UserImportResult persist(PendingUser pending) {
+    UserEntity userEntity = User.toUserEntity(pending.user());
+    userEntity.setId(null);
+    return UserImportResult.created(pending.index(), userService.save(userEntity).getId());
+  }
+
+  private static String describe(Throwable e) {
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+        return "User violates constraint " + violation.getConstraintName();
+      }
+    }
+    return "User could not be saved";
+  }
+
+  private record PendingUser(int index, User user) {
+  }
+}
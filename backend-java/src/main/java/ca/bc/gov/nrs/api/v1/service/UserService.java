@@ -2,61 +2,422 @@ package ca.bc.gov.nrs.api.v1.service;
 
 import ca.bc.gov.nrs.api.v1.entity.UserAddressEntity;
 import ca.bc.gov.nrs.api.v1.entity.UserEntity;
+import ca.bc.gov.nrs.api.v1.repository.ReadReplica;
 import ca.bc.gov.nrs.api.v1.repository.UserAddressRepository;
+import ca.bc.gov.nrs.api.v1.repository.UserExportRepository;
 import ca.bc.gov.nrs.api.v1.repository.UserRepository;
+import ca.bc.gov.nrs.api.v1.structs.User;
+import ca.bc.gov.nrs.api.v1.structs.UserAddress;
+import ca.bc.gov.nrs.api.v1.structs.UserWithAddresses;
+import ca.bc.gov.nrs.api.v1.tracing.Traced;
+import io.micrometer.core.annotation.Timed;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.cache.CacheResult;
+import io.quarkus.cache.CompositeCacheKey;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
 import jakarta.transaction.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+/**
+ * Timed as {@code api.users.service}: database time plus any wait for a pooled connection, which Agroal reports
+ * separately as {@code agroal.blocking.time}. Projected reads go to the read replica when it is caught up, and to the
+ * primary otherwise; writes, the checks around them and the cached single-row lookups always use the primary.
+ * <p>
+ * Each write runs in its own transaction. Reads join a caller's transaction but do not start one, so a primary
+ * connection is only borrowed for the statements themselves. Caches are invalidated once a write has committed;
+ * invalidating earlier would let a concurrent read cache the row the transaction is about to replace.
+ */
 @ApplicationScoped
-@Transactional(Transactional.TxType.MANDATORY)
+@Transactional
+@Traced
+@Timed(value = "api.users.service", percentiles = {0.5, 0.99})
 public class UserService {
 
+  private static final int STREAM_FETCH_SIZE = 500;
+  static final String USERS_CACHE = "users";
+  static final String USER_ADDRESSES_CACHE = "user-addresses";
+  private static final String ADDRESSES_COLLECTION_ROLE = UserEntity.class.getName() + ".addresses";
+
   private final UserRepository userRepository;
   private final UserAddressRepository userAddressRepository;
+  private final ReadReplica readReplica;
+  private final UserExportRepository userExportRepository;
+  private final Cache usersCache;
+  private final Cache userAddressesCache;
+  private final TransactionSynchronizationRegistry transactions;
 
   @Inject
-  public UserService(UserRepository userRepository, UserAddressRepository userAddressRepository) {
+  public UserService(UserRepository userRepository, UserAddressRepository userAddressRepository, ReadReplica readReplica,
+                     UserExportRepository userExportRepository, @CacheName(USERS_CACHE) Cache usersCache, @CacheName(USER_ADDRESSES_CACHE) Cache userAddressesCache,
+                     TransactionSynchronizationRegistry transactions) {
     this.userRepository = userRepository;
     this.userAddressRepository = userAddressRepository;
+    this.readReplica = readReplica;
+    this.userExportRepository = userExportRepository;
+    this.usersCache = usersCache;
+    this.userAddressesCache = userAddressesCache;
+    this.transactions = transactions;
+  }
+
+  @Transactional(Transactional.TxType.SUPPORTS)
+  public List<User> findPage(long after, int limit, String email, String emailPrefix, String namePrefix) {
+    return readReplica.read(session -> userRepository.findPage(session, after, limit, email, emailPrefix, namePrefix))
+      .orElseGet(() -> userRepository.findPage(after, limit, email, emailPrefix, namePrefix));
+  }
+
+  /**
+   * The cursor only streams inside a transaction, which the caller keeps open until the stream is closed.
+   */
+  @Transactional(Transactional.TxType.MANDATORY)
+  public Stream<User> streamAll() {
+    return userRepository.streamAll(STREAM_FETCH_SIZE);
+  }
+
+  /**
+   * Copies every user joined with its addresses to {@code output} as CSV, one row per address; returns the row count.
+   */
+  @Transactional(Transactional.TxType.NOT_SUPPORTED)
+  public long exportCsv(OutputStream output) throws IOException {
+    return userExportRepository.copyCsv(output);
   }
 
-  public List<UserEntity> findAll() {
-    return userRepository.findAll().stream().toList();
+  /**
+   * Copies every user with its addresses nested to {@code output} as NDJSON; returns the user count.
+   */
+  @Transactional(Transactional.TxType.NOT_SUPPORTED)
+  public long exportNdjson(OutputStream output) throws IOException {
+    return userExportRepository.copyNdjson(output);
   }
 
+  /**
+   * Read-through lookup for callers that only need the user's fields or its existence; misses are cached too. Reads
+   * the primary: a replica lagging behind a write would have its stale row cached for the cache's whole lifetime.
+   */
+  @CacheResult(cacheName = USERS_CACHE)
+  @Transactional(Transactional.TxType.SUPPORTS)
+  public Optional<User> findUserById(Long id) {
+    return userRepository.findRecordById(id);
+  }
+
+  /**
+   * Users with the given IDs in one query, ordered by ID; IDs without a user are left out.
+   */
+  @Transactional(Transactional.TxType.SUPPORTS)
+  public List<User> findByIds(List<Long> ids) {
+    return readReplica.read(session -> userRepository.findRecordsByIds(session, ids))
+      .orElseGet(() -> userRepository.findRecordsByIds(ids));
+  }
+
+  @Transactional(Transactional.TxType.SUPPORTS)
   public Optional<UserEntity> findById(Long id) {
     return userRepository.findByIdOptional(id);
   }
 
   public UserEntity save(UserEntity userEntity) {
     userRepository.persist(userEntity);
+    evictCachedUser(userEntity.getId());
     return userEntity;
   }
 
-  public void deleteById(Long id) {
-    userRepository.deleteById(id);
+  public void flush() {
+    userRepository.flush();
+  }
+
+  /**
+   * Copies the user's fields onto the stored entity and flushes, so a concurrent change surfaces here as an
+   * {@link OptimisticLockException}.
+   */
+  public Optional<UserEntity> update(Long id, User user, Long expectedVersion) {
+    Optional<UserEntity> userEntity = userRepository.findByIdOptional(id);
+    if (userEntity.isEmpty()) {
+      return Optional.empty();
+    }
+    checkVersion(userEntity.get().getVersion(), expectedVersion);
+    User.toAttachedUserEntity(user, userEntity.get());
+    userRepository.flush();
+    evictCachedUser(id);
+    return userEntity;
+  }
+
+  /**
+   * Applies the changed fields in one statement without reading the user first; an empty patch only reads it.
+   */
+  public Optional<User> patch(Long id, Map<String, String> changes, Long expectedVersion) {
+    if (changes.isEmpty()) {
+      Optional<User> user = userRepository.findRecordById(id);
+      user.ifPresent(current -> checkVersion(current.version(), expectedVersion));
+      return user;
+    }
+    Optional<User> patched = userRepository.patch(id, changes, expectedVersion);
+    if (patched.isEmpty()) {
+      rejectIfStaleUser(id, expectedVersion);
+      return Optional.empty();
+    }
+    org.hibernate.Cache secondLevelCache = secondLevelCache();
+    afterCommit(() -> secondLevelCache.evictEntityData(UserEntity.class, id));
+    evictCachedUser(id);
+    return patched;
+  }
+
+  public boolean deleteById(Long id, Long expectedVersion) {
+    if (!userRepository.deleteById(id, expectedVersion)) {
+      rejectIfStaleUser(id, expectedVersion);
+      return false;
+    }
+    // The cascaded addresses may stay cached, but nothing reaches them once the user and its collection are gone
+    org.hibernate.Cache secondLevelCache = secondLevelCache();
+    afterCommit(() -> {
+      secondLevelCache.evictEntityData(UserEntity.class, id);
+      secondLevelCache.evictCollectionData(ADDRESSES_COLLECTION_ROLE, id);
+    });
+    evictUser(id);
+    return true;
   }
 
   public void delete(UserEntity userEntity) {
     userRepository.delete(userEntity);
+    evictUser(userEntity.getId());
+  }
+
+  private void evictUser(Long id) {
+    evictCachedUser(id);
+    evictUserAddresses(id);
+  }
+
+  private void evictCachedUser(Long id) {
+    afterCommit(() -> usersCache.invalidate(id).await().indefinitely());
   }
 
+  private void evictUserAddresses(Long id) {
+    afterCommit(() -> userAddressesCache.invalidateIf(key -> key instanceof CompositeCacheKey compositeKey
+      && id.equals(compositeKey.getKeyElements()[0])).await().indefinitely());
+  }
+
+  /**
+   * Walks the user's addresses collection, answered from the second-level cache when it holds the collection. Otherwise
+   * the user and its addresses are fetched in one statement, which warms the cache for the next read.
+   */
+  @Transactional(Transactional.TxType.SUPPORTS)
+  public Optional<List<UserAddress>> findUserAddresses(Long userId) {
+    Optional<UserEntity> userEntity = secondLevelCache().containsCollection(ADDRESSES_COLLECTION_ROLE, userId)
+      ? userRepository.findByIdOptional(userId)
+      : userRepository.findByIdWithAddresses(userId);
+    return userEntity.map(user -> user.getAddresses().stream().map(UserAddress::toUserAddressRecord).toList());
+  }
 
-  public Optional<UserAddressEntity> findUserAddressById(Long id) {
-    return userAddressRepository.findByIdOptional(id);
+  @Transactional(Transactional.TxType.SUPPORTS)
+  public List<UserAddress> findAddressPage(long after, int limit, String city, String state, String zipCode) {
+    return readReplica.read(session -> userAddressRepository.findPage(session, after, limit, city, state, zipCode))
+      .orElseGet(() -> userAddressRepository.findPage(after, limit, city, state, zipCode));
+  }
+
+  /**
+   * Nests each user's addresses, loading them for the whole list with one query.
+   */
+  @Transactional(Transactional.TxType.SUPPORTS)
+  public List<UserWithAddresses> withAddresses(List<User> users) {
+    if (users.isEmpty()) {
+      return List.of();
+    }
+    List<Long> userIds = users.stream().map(User::id).toList();
+    Map<Long, List<UserAddress>> addressesByUser = readReplica.read(session -> userAddressRepository.findByUserIds(session, userIds))
+      .orElseGet(() -> userAddressRepository.findByUserIds(userIds))
+      .stream().collect(Collectors.groupingBy(UserAddress::userId));
+    return users.stream()
+      .map(user -> UserWithAddresses.of(user, addressesByUser.getOrDefault(user.id(), List.of())))
+      .toList();
+  }
+
+  @CacheResult(cacheName = USER_ADDRESSES_CACHE)
+  @Transactional(Transactional.TxType.SUPPORTS)
+  public Optional<UserAddress> findUserAddress(Long userId, Long addressId) {
+    // Cached like findUserById, so it reads the primary too
+    return userAddressRepository.findByIdAndUserId(addressId, userId);
+  }
+
+  /**
+   * Creates the address if the user exists; empty otherwise. Existence is checked on the primary, bypassing the users
+   * cache, so a user created a moment ago is always found.
+   */
+  public Optional<UserAddress> saveUserAddress(Long userId, UserAddress address) {
+    if (userRepository.findRecordById(userId).isEmpty()) {
+      return Optional.empty();
+    }
+    UserEntity userEntity = userRepository.getEntityManager().getReference(UserEntity.class, userId);
+    return Optional.of(UserAddress.toUserAddressRecord(saveUserAddress(UserAddress.toUserAddressEntity(address, userEntity))));
   }
 
   public UserAddressEntity saveUserAddress(UserAddressEntity userAddressEntity) {
     userAddressRepository.persist(userAddressEntity);
+    Long userId = userAddressEntity.getUser().getId();
+    CompositeCacheKey key = new CompositeCacheKey(userId, userAddressEntity.getId());
+    org.hibernate.Cache secondLevelCache = secondLevelCache();
+    afterCommit(() -> {
+      // Only the owning side is set, so Hibernate does not know the user's cached addresses collection is stale.
+      secondLevelCache.evictCollectionData(ADDRESSES_COLLECTION_ROLE, userId);
+      userAddressesCache.invalidate(key).await().indefinitely();
+    });
     return userAddressEntity;
   }
 
-  public void deleteUserAddressById(Long id) {
-    userAddressRepository.deleteById(id);
+  /**
+   * Makes {@code addresses} the user's whole address book: addresses with an ID are updated when a field changed,
+   * those without one are inserted and any others are deleted, so the flush sends at most one JDBC batch of each.
+   * The user row is locked first, so concurrent replaces run one after the other, and {@code precondition} is then
+   * checked against the current addresses, throwing an {@link OptimisticLockException} when it fails. Empty if the user
+   * does not exist; an ID that is not one of the user's addresses, or that appears twice, is an
+   * {@link InvalidAddressesException} before anything is written.
+   */
+  public Optional<List<UserAddress>> replaceUserAddresses(Long userId, List<UserAddress> addresses,
+                                                          Predicate<List<UserAddress>> precondition) {
+    Optional<UserEntity> userEntity = userRepository.findByIdOptional(userId, LockModeType.PESSIMISTIC_WRITE);
+    if (userEntity.isEmpty()) {
+      return Optional.empty();
+    }
+    List<UserAddressEntity> current = userEntity.get().getAddresses();
+    if (!precondition.test(current.stream().map(UserAddress::toUserAddressRecord).toList())) {
+      throw new OptimisticLockException("Addresses of user " + userId + " changed since they were read");
+    }
+    Map<Long, UserAddressEntity> currentById = current.stream()
+      .collect(Collectors.toMap(UserAddressEntity::getId, Function.identity()));
+    Set<Long> kept = new HashSet<>();
+    for (UserAddress address : addresses) {
+      if (address.id() != null && (!currentById.containsKey(address.id()) || !kept.add(address.id()))) {
+        throw new InvalidAddressesException("Address " + address.id() + " is not a distinct address of user " + userId);
+      }
+    }
+    // Orphan removal deletes what is dropped from the collection; dirty checking skips unchanged addresses
+    current.removeIf(address -> !kept.contains(address.getId()));
+    for (UserAddress address : addresses) {
+      if (address.id() == null) {
+        UserAddressEntity created = UserAddress.toUserAddressEntity(address, userEntity.get());
+        userAddressRepository.persist(created);
+        current.add(created);
+      } else {
+        UserAddress.toUserAddressEntityAttached(address, userEntity.get(), currentById.get(address.id()));
+      }
+    }
+    userAddressRepository.flush();
+    evictUserAddresses(userId);
+    return Optional.of(current.stream()
+      .sorted(Comparator.comparing(UserAddressEntity::getId))
+      .map(UserAddress::toUserAddressRecord)
+      .toList());
+  }
+
+  public Optional<UserAddress> updateUserAddress(Long userId, Long addressId, UserAddress address, Long expectedVersion) {
+    Optional<UserAddress> updated = userAddressRepository.updateByIdAndUserId(addressId, userId, address, expectedVersion);
+    if (updated.isEmpty()) {
+      rejectIfStale(userId, addressId, expectedVersion);
+      return Optional.empty();
+    }
+    evictAddress(userId, addressId);
+    return updated;
+  }
+
+  public Optional<UserAddress> patchUserAddress(Long userId, Long addressId, Map<String, String> changes,
+                                                Long expectedVersion) {
+    if (changes.isEmpty()) {
+      Optional<UserAddress> address = userAddressRepository.findByIdAndUserId(addressId, userId);
+      address.ifPresent(current -> checkVersion(current.version(), expectedVersion));
+      return address;
+    }
+    Optional<UserAddress> patched = userAddressRepository.patchByIdAndUserId(addressId, userId, changes, expectedVersion);
+    if (patched.isEmpty()) {
+      rejectIfStale(userId, addressId, expectedVersion);
+      return Optional.empty();
+    }
+    evictAddress(userId, addressId);
+    return patched;
+  }
+
+  public boolean deleteUserAddress(Long userId, Long addressId, Long expectedVersion) {
+    if (!userAddressRepository.deleteByIdAndUserId(addressId, userId, expectedVersion)) {
+      rejectIfStale(userId, addressId, expectedVersion);
+      return false;
+    }
+    org.hibernate.Cache secondLevelCache = secondLevelCache();
+    afterCommit(() -> secondLevelCache.evictCollectionData(ADDRESSES_COLLECTION_ROLE, userId));
+    evictAddress(userId, addressId);
+    return true;
   }
 
+  private void evictAddress(Long userId, Long addressId) {
+    CompositeCacheKey key = new CompositeCacheKey(userId, addressId);
+    org.hibernate.Cache secondLevelCache = secondLevelCache();
+    afterCommit(() -> {
+      secondLevelCache.evictEntityData(UserAddressEntity.class, addressId);
+      userAddressesCache.invalidate(key).await().indefinitely();
+    });
+  }
+
+  /**
+   * Runs {@code eviction} once the current transaction has committed, or straight away outside a transaction. The
+   * session is closed by then, so evictions must not reach for it.
+   */
+  private void afterCommit(Runnable eviction) {
+    if (transactions.getTransactionStatus() != Status.STATUS_ACTIVE) {
+      eviction.run();
+      return;
+    }
+    transactions.registerInterposedSynchronization(new Synchronization() {
+      @Override
+      public void beforeCompletion() {
+      }
+
+      @Override
+      public void afterCompletion(int status) {
+        if (status == Status.STATUS_COMMITTED) {
+          eviction.run();
+        }
+      }
+    });
+  }
+
+  private org.hibernate.Cache secondLevelCache() {
+    return userRepository.getSession().getSessionFactory().getCache();
+  }
+
+  /**
+   * A conditional write that matched no row either hit a missing user or a stale version; only the latter throws.
+   */
+  private void rejectIfStaleUser(Long id, Long expectedVersion) {
+    if (expectedVersion != null && userRepository.findRecordById(id).isPresent()) {
+      throw new OptimisticLockException("User " + id + " is no longer at version " + expectedVersion);
+    }
+  }
+
+  /**
+   * A conditional write that matched no row either hit a missing address or a stale version; only the latter throws.
+   */
+  private void rejectIfStale(Long userId, Long addressId, Long expectedVersion) {
+    if (expectedVersion != null && userAddressRepository.findByIdAndUserId(addressId, userId).isPresent()) {
+      throw new OptimisticLockException("Address " + addressId + " is no longer at version " + expectedVersion);
+    }
+  }
+
+  private static void checkVersion(Long currentVersion, Long expectedVersion) {
+    if (expectedVersion != null && !expectedVersion.equals(currentVersion)) {
+      throw new OptimisticLockException("Expected version " + expectedVersion + " but found " + currentVersion);
+    }
+  }
 }
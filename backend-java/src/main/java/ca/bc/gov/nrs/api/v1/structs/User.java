@@ -1,6 +1,7 @@
 package ca.bc.gov.nrs.api.v1.structs;
 
 import ca.bc.gov.nrs.api.v1.entity.UserEntity;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -8,11 +9,12 @@ import org.eclipse.microprofile.openapi.annotations.media.Schema;
 
 public record User(@Schema(description = "The user ID", example = "1") Long id,
     @NotBlank(message = "Name cannot be blank") @Size(max = 50, message = "Name cannot be longer than 50 characters") @Schema(description = "The user name", example = "John Doe") String name,
-    @NotBlank(message = "Email cannot be blank") @Size(max = 50, message = "Email cannot be longer than 50 characters") @Email(message = "Email should be valid") @Schema(description = "The user email", example = "johndoe@example.com") String email
+    @NotBlank(message = "Email cannot be blank") @Size(max = 50, message = "Email cannot be longer than 50 characters") @Email(message = "Email should be valid") @Schema(description = "The user email", example = "johndoe@example.com") String email,
+    @JsonIgnore @Schema(hidden = true) Long version
 
 ) {
   public static User toUserRecord(UserEntity userEntity) {
-    return new User(userEntity.getId(), userEntity.getName(), userEntity.getEmail());
+    return new User(userEntity.getId(), userEntity.getName(), userEntity.getEmail(), userEntity.getVersion());
   }
 
   public static UserEntity toUserEntity(User user) {
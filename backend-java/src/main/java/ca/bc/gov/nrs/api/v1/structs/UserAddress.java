@@ -2,6 +2,8 @@ package ca.bc.gov.nrs.api.v1.structs;
 
 import ca.bc.gov.nrs.api.v1.entity.UserAddressEntity;
 import ca.bc.gov.nrs.api.v1.entity.UserEntity;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.quarkus.hibernate.orm.panache.common.ProjectedFieldName;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
 
 public record UserAddress(
@@ -10,7 +12,8 @@ public record UserAddress(
   @Schema(description = "The city", example = "Vancouver") String city,
   @Schema(description = "The state or province", example = "BC") String state,
   @Schema(description = "The ZIP or postal code", example = "V6B 2W9") String zipCode,
-  @Schema(description = "The user ID", example = "1") Long userId
+  @Schema(description = "The user ID", example = "1") @ProjectedFieldName("userEntity.id") Long userId,
+  @JsonIgnore @Schema(hidden = true) Long version
 ) {
   public static UserAddress toUserAddressRecord(UserAddressEntity userAddressEntity) {
     return new UserAddress(
@@ -19,7 +22,8 @@ public record UserAddress(
       userAddressEntity.getCity(),
       userAddressEntity.getState(),
       userAddressEntity.getZipCode(),
-      userAddressEntity.getUser().getId()
+      userAddressEntity.getUser().getId(),
+      userAddressEntity.getVersion()
     );
   }
 
@@ -0,0 +1,23 @@
+package ca.bc.gov.nrs.api.v1.structs;
+
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Result of fetching users by ID: the users that exist, in the order they were asked for, and the IDs that do not.
+ */
+public record UserBatch<T>(
+  @Schema(description = "Users found, in the order their IDs were given") List<T> users,
+  @Schema(description = "Requested IDs without a user", example = "[42]") List<Long> missing
+) {
+  public static <T> UserBatch<T> of(List<Long> ids, List<T> found, Function<T, Long> id) {
+    Map<Long, T> byId = found.stream().collect(Collectors.toMap(id, Function.identity()));
+    return new UserBatch<>(
+      ids.stream().filter(byId::containsKey).map(byId::get).toList(),
+      ids.stream().filter(requested -> !byId.containsKey(requested)).toList());
+  }
+}
@@ -0,0 +1,20 @@
+package ca.bc.gov.nrs.api.v1.structs;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.time.Instant;
+
+/**
+ * One entry of the user change feed. {@code data} holds the row as it was after the change and is absent for deletes.
+ */
+public record UserChange(
+  @Schema(description = "Resume token: pass it back as Last-Event-ID or after to continue after this change", example = "742-15") String position,
+  @Schema(description = "What changed", enumeration = {"user", "address"}) String entity,
+  @Schema(description = "How it changed", enumeration = {"created", "updated", "deleted"}) String operation,
+  @Schema(description = "The ID of the changed user or address", example = "1") Long entityId,
+  @Schema(description = "The user the change belongs to", example = "1") Long userId,
+  @JsonRawValue @Schema(description = "The user or address after the change, in the same shape as the API returns it") String data,
+  @Schema(description = "When the transaction that made the change started, so it can be earlier than that of a change before it in the feed") Instant changedAt
+) {
+}
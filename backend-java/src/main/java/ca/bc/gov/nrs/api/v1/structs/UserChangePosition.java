@@ -0,0 +1,34 @@
+package ca.bc.gov.nrs.api.v1.structs;
+
+/**
+ * Where a change sits in the feed: the writing transaction's ID, then the outbox row ID. Changes become visible in this
+ * order, which a plain row ID does not guarantee when transactions commit out of order.
+ */
+public record UserChangePosition(long txId, long id) implements Comparable<UserChangePosition> {
+
+  public static final UserChangePosition START = new UserChangePosition(0, 0);
+
+  /**
+   * Parses a token written by {@link #toString()}.
+   *
+   * @throws IllegalArgumentException if the token is malformed
+   */
+  public static UserChangePosition parse(String token) {
+    int separator = token.indexOf('-');
+    if (separator <= 0) {
+      throw new IllegalArgumentException("Malformed change position " + token);
+    }
+    return new UserChangePosition(Long.parseLong(token.substring(0, separator)), Long.parseLong(token.substring(separator + 1)));
+  }
+
+  @Override
+  public int compareTo(UserChangePosition other) {
+    int byTransaction = Long.compare(txId, other.txId);
+    return byTransaction != 0 ? byTransaction : Long.compare(id, other.id);
+  }
+
+  @Override
+  public String toString() {
+    return txId + "-" + id;
+  }
+}
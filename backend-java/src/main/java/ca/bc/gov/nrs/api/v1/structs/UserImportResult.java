@@ -0,0 +1,19 @@
+package ca.bc.gov.nrs.api.v1.structs;
+
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.util.List;
+
+public record UserImportResult(
+  @Schema(description = "Position of the user in the request, starting at 0", example = "0") int index,
+  @Schema(description = "The ID of the created user, absent when the user was rejected", example = "1") Long id,
+  @Schema(description = "Why the user was rejected, absent when the user was created") List<String> errors
+) {
+  public static UserImportResult created(int index, Long id) {
+    return new UserImportResult(index, id, null);
+  }
+
+  public static UserImportResult rejected(int index, List<String> errors) {
+    return new UserImportResult(index, null, errors);
+  }
+}
@@ -0,0 +1,16 @@
+package ca.bc.gov.nrs.api.v1.structs;
+
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.util.List;
+
+public record UserImportSummary(
+  @Schema(description = "Number of users created", example = "2") int created,
+  @Schema(description = "Number of users rejected", example = "1") int rejected,
+  @Schema(description = "Outcome of every user, in request order") List<UserImportResult> results
+) {
+  public static UserImportSummary of(List<UserImportResult> results) {
+    int created = (int) results.stream().filter(result -> result.id() != null).count();
+    return new UserImportSummary(created, results.size() - created, results);
+  }
+}
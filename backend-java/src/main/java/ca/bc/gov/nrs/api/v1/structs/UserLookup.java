@@ -0,0 +1,18 @@
+package ca.bc.gov.nrs.api.v1.structs;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * Body of a batch get, for ID lists too long for a query string.
+ */
+public record UserLookup(
+  @NotEmpty(message = "IDs cannot be empty") @Size(max = UserLookup.MAX_IDS, message = "At most 1000 IDs can be fetched at once")
+  @Schema(description = "User IDs to fetch", example = "[1, 2, 3]") List<@NotNull Long> ids
+) {
+  public static final int MAX_IDS = 1000;
+}
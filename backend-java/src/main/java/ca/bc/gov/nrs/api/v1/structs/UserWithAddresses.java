@@ -0,0 +1,21 @@
+package ca.bc.gov.nrs.api.v1.structs;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * A user with its addresses nested, returned when a user endpoint is called with {@code expand=addresses}.
+ */
+public record UserWithAddresses(
+  @Schema(description = "The user ID", example = "1") Long id,
+  @Schema(description = "The user name", example = "John Doe") String name,
+  @Schema(description = "The user email", example = "johndoe@example.com") String email,
+  @JsonIgnore @Schema(hidden = true) Long version,
+  @Schema(description = "The user's addresses, ordered by ID") List<UserAddress> addresses
+) {
+  public static UserWithAddresses of(User user, List<UserAddress> addresses) {
+    return new UserWithAddresses(user.id(), user.name(), user.email(), user.version(), addresses);
+  }
+}
@@ -0,0 +1,18 @@
+package ca.bc.gov.nrs.api.v1.tracing;
+
+import jakarta.interceptor.InterceptorBinding;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Opens an OpenTelemetry span named {@code Class.method} around every business method of the annotated bean. Unlike
+ * {@code @WithSpan} it can be put on a class, so a whole layer is traced without annotating each method.
+ */
+@InterceptorBinding
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Traced {
+}
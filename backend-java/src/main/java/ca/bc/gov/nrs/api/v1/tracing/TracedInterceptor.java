@@ -0,0 +1,46 @@
+package ca.bc.gov.nrs.api.v1.tracing;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+
+/**
+ * Runs before the transaction, validation and fault tolerance interceptors, so an endpoint span includes the
+ * transaction boundary and the gap between it and the nested service span is the cost of those layers.
+ */
+@Traced
+@Interceptor
+@Priority(Interceptor.Priority.PLATFORM_BEFORE)
+public class TracedInterceptor {
+
+  private final Tracer tracer;
+
+  @Inject
+  public TracedInterceptor(Tracer tracer) {
+    this.tracer = tracer;
+  }
+
+  @AroundInvoke
+  public Object trace(InvocationContext context) throws Exception {
+    Class<?> type = context.getMethod().getDeclaringClass();
+    Span span = tracer.spanBuilder(type.getSimpleName() + "." + context.getMethod().getName())
+      .setAttribute("code.namespace", type.getName())
+      .setAttribute("code.function", context.getMethod().getName())
+      .startSpan();
+    try (Scope ignored = span.makeCurrent()) {
+      return context.proceed();
+    } catch (Exception e) {
+      span.recordException(e);
+      span.setStatus(StatusCode.ERROR);
+      throw e;
+    } finally {
+      span.end();
+    }
+  }
+}
@@ -0,0 +1,4 @@
+SET SEARCH_PATH TO java_api;
+-- Hibernate reserves the 50 ids starting at each nextval value (pooled-lo optimizer, the Quarkus default); keep in sync with the entities' allocationSize.
+ALTER SEQUENCE "user_id_seq" INCREMENT BY 50;
+ALTER SEQUENCE "user_addresses_id_seq" INCREMENT BY 50;
@@ -0,0 +1,4 @@
+SET SEARCH_PATH TO java_api;
+-- Optimistic locking counters, surfaced to clients as ETags.
+ALTER TABLE "users" ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE "user_addresses" ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,9 @@
+SET SEARCH_PATH TO java_api;
+-- Foreign key lookups: a user's addresses, and ON DELETE CASCADE from users.
+CREATE INDEX IF NOT EXISTS user_addresses_user_id_idx ON "user_addresses" (user_id);
+-- Address search; state alone is too unselective to be worth its own index.
+CREATE INDEX IF NOT EXISTS user_addresses_city_state_idx ON "user_addresses" (city, state);
+CREATE INDEX IF NOT EXISTS user_addresses_zip_code_idx ON "user_addresses" (zip_code);
+-- Prefix (LIKE 'abc%') search on users; the unique email index only serves exact matches under a non-C collation.
+CREATE INDEX IF NOT EXISTS users_email_pattern_idx ON "users" (email varchar_pattern_ops);
+CREATE INDEX IF NOT EXISTS users_name_pattern_idx ON "users" (name varchar_pattern_ops);
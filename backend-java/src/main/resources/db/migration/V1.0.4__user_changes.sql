@@ -0,0 +1,54 @@
+SET SEARCH_PATH TO java_api;
+-- Outbox of user and address changes for the change feed, written by triggers in the transaction that made the change,
+-- so bulk updates and cascaded deletes are recorded too. tx_id orders rows by when they can become visible.
+CREATE TABLE IF NOT EXISTS "user_changes"
+(
+    id         BIGSERIAL PRIMARY KEY,
+    tx_id      BIGINT      NOT NULL DEFAULT pg_current_xact_id()::text::bigint,
+    entity     VARCHAR(10) NOT NULL,
+    operation  VARCHAR(10) NOT NULL,
+    entity_id  INTEGER     NOT NULL,
+    user_id    INTEGER     NOT NULL,
+    data       JSONB,
+    changed_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+CREATE INDEX IF NOT EXISTS user_changes_position_idx ON "user_changes" (tx_id, id);
+CREATE INDEX IF NOT EXISTS user_changes_changed_at_idx ON "user_changes" (changed_at);
+
+CREATE OR REPLACE FUNCTION record_user_change() RETURNS TRIGGER AS
+$$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        INSERT INTO java_api.user_changes (entity, operation, entity_id, user_id)
+        VALUES ('user', 'deleted', OLD.id, OLD.id);
+        RETURN OLD;
+    END IF;
+    INSERT INTO java_api.user_changes (entity, operation, entity_id, user_id, data)
+    VALUES ('user', CASE TG_OP WHEN 'INSERT' THEN 'created' ELSE 'updated' END, NEW.id, NEW.id,
+            jsonb_build_object('id', NEW.id, 'name', NEW.name, 'email', NEW.email, 'version', NEW.version));
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION record_user_address_change() RETURNS TRIGGER AS
+$$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        INSERT INTO java_api.user_changes (entity, operation, entity_id, user_id)
+        VALUES ('address', 'deleted', OLD.id, OLD.user_id);
+        RETURN OLD;
+    END IF;
+    INSERT INTO java_api.user_changes (entity, operation, entity_id, user_id, data)
+    VALUES ('address', CASE TG_OP WHEN 'INSERT' THEN 'created' ELSE 'updated' END, NEW.id, NEW.user_id,
+            jsonb_build_object('id', NEW.id, 'street', NEW.street, 'city', NEW.city, 'state', NEW.state,
+                               'zipCode', NEW.zip_code, 'userId', NEW.user_id, 'version', NEW.version));
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER users_record_change
+    AFTER INSERT OR UPDATE OR DELETE ON "users"
+    FOR EACH ROW EXECUTE FUNCTION record_user_change();
+CREATE TRIGGER user_addresses_record_change
+    AFTER INSERT OR UPDATE OR DELETE ON "user_addresses"
+    FOR EACH ROW EXECUTE FUNCTION record_user_address_change();
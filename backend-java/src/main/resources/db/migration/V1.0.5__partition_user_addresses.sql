@@ -0,0 +1,46 @@
+SET SEARCH_PATH TO java_api;
+-- Hash-partitions addresses by user, so a user's addresses and the cascade when the user is deleted stay within one
+-- partition and its indexes stay small. The partition count comes from the address_partitions placeholder and is
+-- fixed once this has run; changing it later means another migration that repartitions.
+-- The primary key has to include the partition key; ids still come from the global sequence and stay unique.
+CREATE TABLE "user_addresses_partitioned"
+(
+    id       INTEGER     NOT NULL DEFAULT nextval('user_addresses_id_seq'),
+    street   VARCHAR(50) NOT NULL,
+    city     VARCHAR(50) NOT NULL,
+    state    VARCHAR(50) NOT NULL,
+    zip_code VARCHAR(10) NOT NULL,
+    user_id  INTEGER     NOT NULL,
+    version  BIGINT      NOT NULL DEFAULT 0
+) PARTITION BY HASH (user_id);
+
+DO
+$$
+    BEGIN
+        FOR remainder IN 0..${address_partitions} - 1
+            LOOP
+                EXECUTE format('CREATE TABLE java_api.user_addresses_p%s PARTITION OF java_api.user_addresses_partitioned'
+                                   || ' FOR VALUES WITH (MODULUS %s, REMAINDER %s)', remainder, ${address_partitions}, remainder);
+            END LOOP;
+    END
+$$;
+
+-- Copy before building keys and indexes, which is much faster than maintaining them row by row. Writers wait on the
+-- lock for the duration; on a large table run this in a maintenance window.
+LOCK TABLE "user_addresses" IN SHARE MODE;
+INSERT INTO "user_addresses_partitioned" (id, street, city, state, zip_code, user_id, version)
+SELECT id, street, city, state, zip_code, user_id, version
+FROM "user_addresses";
+DROP TABLE "user_addresses";
+ALTER TABLE "user_addresses_partitioned" RENAME TO "user_addresses";
+
+ALTER TABLE "user_addresses" ADD CONSTRAINT user_addresses_pkey PRIMARY KEY (id, user_id);
+ALTER TABLE "user_addresses" ADD CONSTRAINT user_addresses_user_id_fkey
+    FOREIGN KEY (user_id) REFERENCES "users" (id) ON DELETE CASCADE;
+CREATE INDEX IF NOT EXISTS user_addresses_user_id_idx ON "user_addresses" (user_id);
+CREATE INDEX IF NOT EXISTS user_addresses_city_state_idx ON "user_addresses" (city, state);
+CREATE INDEX IF NOT EXISTS user_addresses_zip_code_idx ON "user_addresses" (zip_code);
+CREATE TRIGGER user_addresses_record_change
+    AFTER INSERT OR UPDATE OR DELETE ON "user_addresses"
+    FOR EACH ROW EXECUTE FUNCTION record_user_address_change();
+ANALYZE "user_addresses";
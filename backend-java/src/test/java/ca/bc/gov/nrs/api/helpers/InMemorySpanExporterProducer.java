@@ -0,0 +1,19 @@
+package ca.bc.gov.nrs.api.helpers;
+
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
+
+/**
+ * Stands in for the OTLP collector: Quarkus exports finished spans to every SpanExporter bean.
+ */
+@ApplicationScoped
+public class InMemorySpanExporterProducer {
+
+  @Produces
+  @Singleton
+  InMemorySpanExporter inMemorySpanExporter() {
+    return InMemorySpanExporter.create();
+  }
+}
@@ -3,6 +3,7 @@ package ca.bc.gov.nrs.api.helpers;
 import ca.bc.gov.nrs.api.v1.entity.UserAddressEntity;
 import ca.bc.gov.nrs.api.v1.entity.UserEntity;
 import ca.bc.gov.nrs.api.v1.repository.UserRepository;
+import io.quarkus.cache.CacheInvalidateAll;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
@@ -20,6 +21,8 @@ public class TestHelper {
   }
 
   @Transactional(Transactional.TxType.REQUIRES_NEW)
+  @CacheInvalidateAll(cacheName = "users")
+  @CacheInvalidateAll(cacheName = "user-addresses")
   public void clearDatabase() {
     this.userRepository.deleteAll();
   }
@@ -35,6 +38,28 @@ public class TestHelper {
     return user;
   }
 
+  @Transactional(Transactional.TxType.REQUIRES_NEW)
+  public UserEntity saveUser(String name, String email) {
+    UserEntity user = new UserEntity();
+    user.setName(name);
+    user.setEmail(email);
+    this.userRepository.persist(user);
+    return user;
+  }
+
+  @Transactional(Transactional.TxType.REQUIRES_NEW)
+  public UserAddressEntity saveUserAddress(UserEntity userEntity, String city, String state, String zipCode) {
+    UserEntity savedUser = userRepository.findById(userEntity.getId());
+    UserAddressEntity userAddress = new UserAddressEntity();
+    userAddress.setUser(savedUser);
+    userAddress.setStreet(faker.address().streetAddress());
+    userAddress.setCity(city);
+    userAddress.setState(state);
+    userAddress.setZipCode(zipCode);
+    savedUser.getAddresses().add(userAddress);
+    return userAddress;
+  }
+
   @Transactional(Transactional.TxType.REQUIRES_NEW)
   public List<UserEntity> saveUsers(int size) {
     var users = new java.util.ArrayList<UserEntity>();
@@ -0,0 +1,87 @@
+package ca.bc.gov.nrs.api.v1.endpoints;
+
+import ca.bc.gov.nrs.api.helpers.TestHelper;
+import ca.bc.gov.nrs.api.v1.entity.UserEntity;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.everyItem;
+import static org.hamcrest.CoreMatchers.nullValue;
+
+@QuarkusTest
+class AddressEndpointTest {
+
+  private final TestHelper testHelper;
+
+  @Inject
+  AddressEndpointTest(TestHelper testHelper) {
+    this.testHelper = testHelper;
+  }
+
+  @BeforeEach
+  void setup() {
+    testHelper.clearDatabase();
+    UserEntity first = testHelper.saveUser();
+    UserEntity second = testHelper.saveUser();
+    testHelper.saveUserAddress(first, "Victoria", "BC", "V8W 1P6");
+    testHelper.saveUserAddress(first, "Vancouver", "BC", "V6B 2W9");
+    testHelper.saveUserAddress(second, "Victoria", "BC", "V8V 1A1");
+    testHelper.saveUserAddress(second, "Victoria", "TX", "77901");
+  }
+
+  @Test
+  void testSearchAddresses_givenCityAndState_shouldReturnMatchingAddressesAcrossUsers() {
+    given()
+      .basePath("/api/v1")
+      .queryParam("city", "Victoria")
+      .queryParam("state", "BC")
+      .when().get("/addresses")
+      .then()
+      .statusCode(200)
+      .body("$.size()", equalTo(2))
+      .body("city", everyItem(equalTo("Victoria")))
+      .body("state", everyItem(equalTo("BC")));
+  }
+
+  @Test
+  void testSearchAddresses_givenZipCode_shouldReturnThatAddress() {
+    given()
+      .basePath("/api/v1")
+      .queryParam("zipCode", "77901")
+      .when().get("/addresses")
+      .then()
+      .statusCode(200)
+      .body("$.size()", equalTo(1))
+      .body("[0].state", equalTo("TX"));
+  }
+
+  @Test
+  void testSearchAddresses_givenLimit_shouldReturnFirstPageWithNextLinkKeepingFilters() {
+    given()
+      .basePath("/api/v1")
+      .queryParam("city", "Victoria")
+      .queryParam("limit", 2)
+      .when().get("/addresses")
+      .then()
+      .statusCode(200)
+      .header("Link", containsString("city=Victoria"))
+      .body("$.size()", equalTo(2));
+  }
+
+  @Test
+  void testSearchAddresses_givenNoMatch_shouldReturnEmptyPageWithoutNextLink() {
+    given()
+      .basePath("/api/v1")
+      .queryParam("city", "Nowhere")
+      .when().get("/addresses")
+      .then()
+      .statusCode(200)
+      .header("Link", nullValue())
+      .body("$.size()", equalTo(0));
+  }
+}
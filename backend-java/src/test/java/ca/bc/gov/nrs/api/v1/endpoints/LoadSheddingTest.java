@@ -0,0 +1,43 @@
+package ca.bc.gov.nrs.api.v1.endpoints;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+
+@QuarkusTest
+@TestProfile(LoadSheddingTest.LowClientRateLimit.class)
+class LoadSheddingTest {
+
+  public static class LowClientRateLimit implements QuarkusTestProfile {
+    @Override
+    public Map<String, String> getConfigOverrides() {
+      return Map.of("api.users.client-rate-limit", "3", "api.users.rate-limit-window", "60S");
+    }
+  }
+
+  @Test
+  void testGetUsers_givenClientOverItsLimit_shouldRejectWith429AndCountTheShedRequest() {
+    for (int i = 0; i < 3; i++) {
+      given().basePath("/api/v1").when().get("/users").then().statusCode(200);
+    }
+    given()
+      .basePath("/api/v1")
+      .when().get("/users")
+      .then()
+      .statusCode(429)
+      .header("Retry-After", equalTo("60"));
+
+    given()
+      .when().get("/q/metrics")
+      .then()
+      .statusCode(200)
+      .body(containsString("api_http_shed_total{reason=\"client-rate-limit\"}"));
+  }
+}
@@ -0,0 +1,203 @@
+package ca.bc.gov.nrs.api.v1.endpoints;
+
+import ca.bc.gov.nrs.api.helpers.TestHelper;
+import ca.bc.gov.nrs.api.v1.entity.UserAddressEntity;
+import ca.bc.gov.nrs.api.v1.entity.UserEntity;
+import ca.bc.gov.nrs.api.v1.service.ReactiveUserService;
+import ca.bc.gov.nrs.api.v1.structs.User;
+import ca.bc.gov.nrs.api.v1.structs.UserAddress;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import net.datafaker.Faker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The reactive user resource, which only exists in the {@code reactive} build. Surefire runs this class in its own
+ * execution with {@code quarkus.test.profile=test,reactive} and leaves it out of the default one.
+ */
+@QuarkusTest
+@Tag("reactive")
+class ReactiveUserEndpointTest {
+
+  private final TestHelper testHelper;
+  private final Instance<ReactiveUserService> reactiveUserService;
+  private final Faker faker = new Faker();
+  UserEntity userEntity;
+  UserAddressEntity addressEntity;
+
+  @Inject
+  ReactiveUserEndpointTest(TestHelper testHelper, Instance<ReactiveUserService> reactiveUserService) {
+    this.testHelper = testHelper;
+    this.reactiveUserService = reactiveUserService;
+  }
+
+  @BeforeEach
+  void setup() {
+    assertTrue(reactiveUserService.isResolvable(), "Run with -Dquarkus.test.profile=test,reactive");
+    testHelper.clearDatabase();
+    userEntity = testHelper.saveUser();
+    addressEntity = testHelper.saveUserAddress(userEntity);
+  }
+
+  @Test
+  void testGetUserById_givenValidID_shouldReturnTheUserAndTag() {
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .when().get("/users/{id}")
+      .then()
+      .statusCode(200)
+      .header("ETag", equalTo("\"" + userEntity.getVersion() + "\""))
+      .body("email", equalTo(userEntity.getEmail()));
+  }
+
+  @Test
+  void testCreateUser_givenSeveralUsers_shouldTakeConsecutiveIdsFromTheSameBlock() {
+    List<Integer> ids = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      ids.add(given()
+        .basePath("/api/v1")
+        .contentType(ContentType.JSON)
+        .body(new User(null, faker.name().fullName(), faker.internet().emailAddress(), null))
+        .when().post("/users")
+        .then()
+        .statusCode(201)
+        .extract().path("id"));
+    }
+    // Three ids cross at most one block boundary; taking each from the column default would leave gaps of 50
+    assertTrue(ids.get(1) - ids.get(0) == 1 || ids.get(2) - ids.get(1) == 1, ids::toString);
+  }
+
+  @Test
+  void testCreateUser_givenUsersAlsoSavedThroughHibernate_shouldNeverReuseAnId() {
+    Set<Long> ids = new HashSet<>(List.of(userEntity.getId()));
+    for (int i = 0; i < 3; i++) {
+      Integer created = given()
+        .basePath("/api/v1")
+        .contentType(ContentType.JSON)
+        .body(new User(null, faker.name().fullName(), faker.internet().emailAddress(), null))
+        .when().post("/users")
+        .then()
+        .statusCode(201)
+        .extract().path("id");
+      assertTrue(ids.add(created.longValue()), () -> "Reused " + created);
+      // Hibernate keeps taking ids from the block it reserved before the reactive repository reserved its own
+      Long saved = testHelper.saveUser().getId();
+      assertTrue(ids.add(saved), () -> "Reused " + saved);
+    }
+  }
+
+  @Test
+  void testUpdateUser_givenStaleIfMatch_shouldReturnStatusPreconditionFailed() {
+    given()
+      .basePath("/api/v1")
+      .contentType(ContentType.JSON)
+      .pathParam("id", userEntity.getId())
+      .header("If-Match", "\"" + (userEntity.getVersion() + 1) + "\"")
+      .body(new User(null, faker.name().fullName(), userEntity.getEmail(), null))
+      .when().put("/users/{id}")
+      .then()
+      .statusCode(412);
+  }
+
+  @Test
+  void testLookupUsers_givenExistingAndMissingIds_shouldReturnBoth() {
+    given()
+      .basePath("/api/v1")
+      .contentType(ContentType.JSON)
+      .body("{\"ids\": [" + userEntity.getId() + ", 0]}")
+      .when().post("/users/lookup")
+      .then()
+      .statusCode(200)
+      .body("users.id", contains(userEntity.getId().intValue()))
+      .body("missing", contains(0));
+  }
+
+  @Test
+  void testCreateAddress_givenRandomUserID_shouldReturnStatusNotFound() {
+    given()
+      .basePath("/api/v1")
+      .contentType(ContentType.JSON)
+      .pathParam("id", -1)
+      .body(new UserAddress(null, faker.address().streetAddress(), faker.address().city(), faker.address().state(),
+        faker.address().zipCode(), null, null))
+      .when().post("/users/{id}/addresses")
+      .then()
+      .statusCode(404);
+  }
+
+  @Test
+  void testReplaceUserAddresses_givenChangedAndNewAddresses_shouldMakeThemTheUsersAddresses() {
+    UserAddressEntity droppedAddress = testHelper.saveUserAddress(userEntity);
+    var street = faker.address().streetAddress();
+    List<UserAddress> addresses = List.of(
+      new UserAddress(addressEntity.getId(), street, addressEntity.getCity(), addressEntity.getState(),
+        addressEntity.getZipCode(), userEntity.getId(), null),
+      new UserAddress(null, faker.address().streetAddress(), faker.address().city(), faker.address().state(),
+        faker.address().zipCode(), null, null),
+      new UserAddress(null, faker.address().streetAddress(), faker.address().city(), faker.address().state(),
+        faker.address().zipCode(), null, null));
+    given()
+      .basePath("/api/v1")
+      .contentType(ContentType.JSON)
+      .pathParam("id", userEntity.getId())
+      .body(addresses)
+      .when().put("/users/{id}/addresses")
+      .then()
+      .statusCode(200)
+      .body("$.size()", equalTo(3))
+      .body("[0].id", equalTo(addressEntity.getId().intValue()))
+      .body("[0].street", equalTo(street))
+      .body("[2].userId", equalTo(userEntity.getId().intValue()))
+      .body("id", not(hasItem(droppedAddress.getId().intValue())));
+  }
+
+  @Test
+  void testReplaceUserAddresses_givenAddressOfAnotherUser_shouldReturnStatusBadRequest() {
+    UserEntity otherUser = testHelper.saveUser();
+    UserAddressEntity otherAddress = testHelper.saveUserAddress(otherUser);
+    given()
+      .basePath("/api/v1")
+      .contentType(ContentType.JSON)
+      .pathParam("id", userEntity.getId())
+      .body(List.of(new UserAddress(otherAddress.getId(), faker.address().streetAddress(), otherAddress.getCity(),
+        otherAddress.getState(), otherAddress.getZipCode(), userEntity.getId(), null)))
+      .when().put("/users/{id}/addresses")
+      .then()
+      .statusCode(400);
+  }
+
+  @Test
+  void testDeleteAddress_givenValidIDs_shouldReturnStatusNoContent() {
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .pathParam("addressId", addressEntity.getId())
+      .when().delete("/users/{id}/addresses/{addressId}")
+      .then()
+      .statusCode(204);
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .when().get("/users/{id}/addresses")
+      .then()
+      .statusCode(200)
+      .body("$.size()", equalTo(0));
+  }
+}
@@ -0,0 +1,92 @@
+package ca.bc.gov.nrs.api.v1.endpoints;
+
+import ca.bc.gov.nrs.api.helpers.TestHelper;
+import ca.bc.gov.nrs.api.v1.entity.UserEntity;
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.agroal.DataSource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * In tests the replica datasource points at the primary's database, so only the routing is checked here.
+ */
+@QuarkusTest
+class ReadReplicaTest {
+
+  private final TestHelper testHelper;
+  private final AgroalDataSource replica;
+  UserEntity userEntity;
+
+  @Inject
+  ReadReplicaTest(TestHelper testHelper, @DataSource("replica") AgroalDataSource replica) {
+    this.testHelper = testHelper;
+    this.replica = replica;
+  }
+
+  @BeforeEach
+  void setup() {
+    testHelper.clearDatabase();
+    userEntity = testHelper.saveUser();
+    testHelper.saveUserAddress(userEntity);
+  }
+
+  @Test
+  void testGetUsers_givenExpandedAddresses_shouldReadFromTheReplica() {
+    long acquired = replica.getMetrics().acquireCount();
+    given()
+      .basePath("/api/v1")
+      .queryParam("expand", "addresses")
+      .when().get("/users")
+      .then()
+      .statusCode(200)
+      .body("[0].addresses.size()", equalTo(1));
+    assertTrue(replica.getMetrics().acquireCount() > acquired);
+  }
+
+  @Test
+  void testExportUsers_givenCsvAccepted_shouldCopyFromTheReplicaPool() {
+    long acquired = replica.getMetrics().acquireCount();
+    given()
+      .basePath("/api/v1")
+      .accept("text/csv")
+      .when().get("/users/export")
+      .then()
+      .statusCode(200);
+    assertTrue(replica.getMetrics().acquireCount() > acquired);
+  }
+
+  @Test
+  void testGetUserById_givenCachedLookup_shouldReadThePrimaryOnly() {
+    long acquired = replica.getMetrics().acquireCount();
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .when().get("/users/{id}")
+      .then()
+      .statusCode(200)
+      .body("email", equalTo(userEntity.getEmail()));
+    assertEquals(acquired, replica.getMetrics().acquireCount());
+  }
+
+  @Test
+  void testPatchUser_givenChangedName_shouldWriteToThePrimaryOnly() {
+    long acquired = replica.getMetrics().acquireCount();
+    given()
+      .basePath("/api/v1")
+      .contentType("application/merge-patch+json")
+      .pathParam("id", userEntity.getId())
+      .body("{\"name\": \"Replica Test\"}")
+      .when().patch("/users/{id}")
+      .then()
+      .statusCode(200)
+      .body("name", equalTo("Replica Test"));
+    assertEquals(acquired, replica.getMetrics().acquireCount());
+  }
+}
@@ -0,0 +1,348 @@
+package ca.bc.gov.nrs.api.v1.endpoints;
+
+import ca.bc.gov.nrs.api.helpers.TestHelper;
+import ca.bc.gov.nrs.api.v1.entity.UserAddressEntity;
+import ca.bc.gov.nrs.api.v1.entity.UserEntity;
+import ca.bc.gov.nrs.api.v1.structs.UserAddress;
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import io.restassured.response.ValidatableResponse;
+import jakarta.inject.Inject;
+import net.datafaker.Faker;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+class StatementCountTest {
+
+  private final TestHelper testHelper;
+  private final SessionFactory sessionFactory;
+  private final AgroalDataSource dataSource;
+  private final Statistics statistics;
+  private final Faker faker = new Faker();
+  UserEntity userEntity;
+  UserAddressEntity addressEntity;
+
+  @Inject
+  StatementCountTest(TestHelper testHelper, SessionFactory sessionFactory, AgroalDataSource dataSource) {
+    this.testHelper = testHelper;
+    this.sessionFactory = sessionFactory;
+    this.dataSource = dataSource;
+    this.statistics = sessionFactory.getStatistics();
+  }
+
+  @BeforeEach
+  void setup() {
+    testHelper.clearDatabase();
+    userEntity = testHelper.saveUser();
+    addressEntity = testHelper.saveUserAddress(userEntity);
+    sessionFactory.getCache().evictAllRegions();
+    statistics.clear();
+  }
+
+  @Test
+  void testSaveUsers_givenPooledSequence_shouldNotCallTheSequencePerInsert() throws SQLException {
+    long calls = userIdSequenceCalls();
+    testHelper.saveUsers(50);
+    assertEquals(50, statistics.getEntityInsertCount());
+    // One block of 50 ids, or two when the block in hand runs out mid-way
+    assertTrue(userIdSequenceCalls() - calls <= 2);
+  }
+
+  @Test
+  void testGetUserAddresses_givenValidID_shouldExecuteOneStatement() {
+    getUserAddresses().body("$.size()", equalTo(1));
+    assertEquals(1, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void testGetUserAddresses_givenRepeatedCalls_shouldLoadOnceThenHitTheSecondLevelCache() {
+    getUserAddresses().body("$.size()", equalTo(1));
+    assertEquals(1, statistics.getPrepareStatementCount());
+
+    statistics.clear();
+    getUserAddresses().body("$.size()", equalTo(1));
+    assertEquals(0, statistics.getPrepareStatementCount());
+    assertTrue(statistics.getSecondLevelCacheHitCount() >= 3);
+  }
+
+  @Test
+  void testGetUserAddresses_givenCreatedAddress_shouldEvictTheCachedCollection() {
+    getUserAddresses().body("$.size()", equalTo(1));
+    given()
+      .basePath("/api/v1")
+      .contentType(ContentType.JSON)
+      .pathParam("id", userEntity.getId())
+      .body(randomAddress(null))
+      .when().post("/users/{id}/addresses")
+      .then()
+      .statusCode(201);
+    getUserAddresses().body("$.size()", equalTo(2));
+  }
+
+  @Test
+  void testGetUserAddresses_givenUpdatedAddress_shouldEvictTheCachedAddress() {
+    getUserAddresses().body("$.size()", equalTo(1));
+    UserAddress userAddress = randomAddress(addressEntity.getId());
+    given()
+      .basePath("/api/v1")
+      .contentType(ContentType.JSON)
+      .pathParam("id", userEntity.getId())
+      .pathParam("addressId", addressEntity.getId())
+      .body(userAddress)
+      .when().put("/users/{id}/addresses/{addressId}")
+      .then()
+      .statusCode(200);
+    getUserAddresses().body("[0].street", equalTo(userAddress.street()));
+  }
+
+  @Test
+  void testGetUserAddresses_givenDeletedAddress_shouldEvictTheCachedCollection() {
+    getUserAddresses().body("$.size()", equalTo(1));
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .pathParam("addressId", addressEntity.getId())
+      .when().delete("/users/{id}/addresses/{addressId}")
+      .then()
+      .statusCode(204);
+    getUserAddresses().body("$.size()", equalTo(0));
+  }
+
+  @Test
+  void testGetUserAddresses_givenAnotherUsersAddressChanged_shouldKeepServingFromTheSecondLevelCache() {
+    UserEntity otherUser = testHelper.saveUser();
+    testHelper.saveUserAddress(otherUser);
+    getUserAddresses().body("$.size()", equalTo(1));
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", otherUser.getId())
+      .when().get("/users/{id}/addresses")
+      .then()
+      .statusCode(200);
+    given()
+      .basePath("/api/v1")
+      .contentType(ContentType.JSON)
+      .pathParam("id", userEntity.getId())
+      .pathParam("addressId", addressEntity.getId())
+      .body(randomAddress(addressEntity.getId()))
+      .when().put("/users/{id}/addresses/{addressId}")
+      .then()
+      .statusCode(200);
+
+    statistics.clear();
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", otherUser.getId())
+      .when().get("/users/{id}/addresses")
+      .then()
+      .statusCode(200)
+      .body("$.size()", equalTo(1));
+    assertEquals(0, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void testGetUserAddresses_givenRandomID_shouldExecuteOneStatement() {
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", 20000)
+      .when().get("/users/{id}/addresses")
+      .then()
+      .statusCode(404);
+    assertEquals(1, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void testGetUserAddressById_givenValidIDs_shouldExecuteOneStatement() {
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .pathParam("addressId", addressEntity.getId())
+      .when().get("/users/{id}/addresses/{addressId}")
+      .then()
+      .statusCode(200)
+      .body("userId", equalTo(userEntity.getId().intValue()));
+    assertEquals(1, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void testUpdateUserAddress_givenValidPayload_shouldExecuteOneStatement() {
+    UserAddress userAddress = randomAddress(addressEntity.getId());
+    given()
+      .basePath("/api/v1")
+      .contentType(ContentType.JSON)
+      .pathParam("id", userEntity.getId())
+      .pathParam("addressId", addressEntity.getId())
+      .body(userAddress)
+      .when().put("/users/{id}/addresses/{addressId}")
+      .then()
+      .statusCode(200);
+    assertEquals(1, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void testDeleteUserAddress_givenValidIDs_shouldExecuteOneStatement() {
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .pathParam("addressId", addressEntity.getId())
+      .when().delete("/users/{id}/addresses/{addressId}")
+      .then()
+      .statusCode(204);
+    assertEquals(1, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void testPatchUserAddress_givenOneField_shouldExecuteOneStatementAndEvictTheCachedAddress() {
+    getUserAddresses().body("$.size()", equalTo(1));
+    statistics.clear();
+    given()
+      .basePath("/api/v1")
+      .contentType("application/merge-patch+json")
+      .pathParam("id", userEntity.getId())
+      .pathParam("addressId", addressEntity.getId())
+      .body("{\"zipCode\": \"V0E 1B0\"}")
+      .when().patch("/users/{id}/addresses/{addressId}")
+      .then()
+      .statusCode(200);
+    assertEquals(1, statistics.getPrepareStatementCount());
+    getUserAddresses().body("[0].zipCode", equalTo("V0E 1B0"));
+  }
+
+  @Test
+  void testGetAllUsers_givenExpandAddresses_shouldExecuteTwoStatementsForTheWholePage() {
+    for (UserEntity user : testHelper.saveUsers(20)) {
+      testHelper.saveUserAddress(user);
+    }
+    statistics.clear();
+    given()
+      .basePath("/api/v1")
+      .queryParam("expand", "addresses")
+      .when().get("/users")
+      .then()
+      .statusCode(200)
+      .body("$.size()", equalTo(21));
+    assertEquals(2, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void testLookupUsers_givenManyIdsAndExpandAddresses_shouldExecuteTwoStatements() {
+    List<Long> ids = new ArrayList<>();
+    for (UserEntity user : testHelper.saveUsers(50)) {
+      testHelper.saveUserAddress(user);
+      ids.add(user.getId());
+    }
+    statistics.clear();
+    given()
+      .basePath("/api/v1")
+      .contentType(ContentType.JSON)
+      .queryParam("expand", "addresses")
+      .body(Map.of("ids", ids))
+      .when().post("/users/lookup")
+      .then()
+      .statusCode(200)
+      .body("users.size()", equalTo(50))
+      .body("missing.size()", equalTo(0));
+    assertEquals(2, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void testReplaceUserAddresses_givenMixedChanges_shouldBatchEachKindOfWrite() {
+    UserAddressEntity changedAddress = testHelper.saveUserAddress(userEntity, faker.address().city(),
+      faker.address().state(), faker.address().zipCode());
+    testHelper.saveUserAddress(userEntity, faker.address().city(), faker.address().state(), faker.address().zipCode());
+    statistics.clear();
+    given()
+      .basePath("/api/v1")
+      .contentType(ContentType.JSON)
+      .pathParam("id", userEntity.getId())
+      .body(List.of(
+        new UserAddress(addressEntity.getId(), addressEntity.getStreet(), addressEntity.getCity(),
+          addressEntity.getState(), addressEntity.getZipCode(), userEntity.getId(), null),
+        randomAddress(changedAddress.getId()), randomAddress(null), randomAddress(null), randomAddress(null)))
+      .when().put("/users/{id}/addresses")
+      .then()
+      .statusCode(200)
+      .body("$.size()", equalTo(5));
+    assertEquals(3, statistics.getEntityInsertCount());
+    assertEquals(1, statistics.getEntityUpdateCount());
+    assertEquals(1, statistics.getEntityDeleteCount());
+    // User and addresses, at most one nextval, then one batch each of inserts, updates and deletes
+    assertTrue(statistics.getPrepareStatementCount() <= 6);
+  }
+
+  @Test
+  void testDeleteUser_givenManyAddresses_shouldExecuteOneStatementAndCascadeInTheDatabase() {
+    for (int i = 0; i < 20; i++) {
+      testHelper.saveUserAddress(userEntity);
+    }
+    statistics.clear();
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .when().delete("/users/{id}")
+      .then()
+      .statusCode(204);
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(0, statistics.getEntityLoadCount());
+    getUserAddresses(404);
+  }
+
+  @Test
+  void testDeleteUser_givenRandomID_shouldExecuteOneStatement() {
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", 20000)
+      .when().delete("/users/{id}")
+      .then()
+      .statusCode(404);
+    assertEquals(1, statistics.getPrepareStatementCount());
+  }
+
+  /**
+   * nextval calls on the user id sequence so far, counted in the database whatever statements Hibernate batched.
+   */
+  private long userIdSequenceCalls() throws SQLException {
+    try (Connection connection = dataSource.getConnection();
+         Statement statement = connection.createStatement();
+         ResultSet sequence = statement.executeQuery("select coalesce(last_value, 0), increment_by from pg_sequences"
+           + " where schemaname = 'java_api' and sequencename = 'user_id_seq'")) {
+      sequence.next();
+      return sequence.getLong(1) / sequence.getLong(2);
+    }
+  }
+
+  private ValidatableResponse getUserAddresses() {
+    return getUserAddresses(200);
+  }
+
+  private ValidatableResponse getUserAddresses(int statusCode) {
+    return given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .when().get("/users/{id}/addresses")
+      .then()
+      .statusCode(statusCode);
+  }
+
+  private UserAddress randomAddress(Long id) {
+    return new UserAddress(id, faker.address().streetAddress(), faker.address().city(), faker.address().state(),
+      faker.address().zipCode(), userEntity.getId(), null);
+  }
+}
@@ -0,0 +1,83 @@
+package ca.bc.gov.nrs.api.v1.endpoints;
+
+import ca.bc.gov.nrs.api.helpers.TestHelper;
+import ca.bc.gov.nrs.api.v1.entity.UserEntity;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+class TracingTest {
+
+  private static final AttributeKey<String> DB_SYSTEM = AttributeKey.stringKey("db.system");
+
+  private final TestHelper testHelper;
+  private final InMemorySpanExporter spanExporter;
+  UserEntity userEntity;
+
+  @Inject
+  TracingTest(TestHelper testHelper, InMemorySpanExporter spanExporter) {
+    this.testHelper = testHelper;
+    this.spanExporter = spanExporter;
+  }
+
+  @BeforeEach
+  void setup() {
+    testHelper.clearDatabase();
+    userEntity = testHelper.saveUser();
+    testHelper.saveUserAddress(userEntity);
+    spanExporter.reset();
+  }
+
+  @Test
+  void testGetUserAddresses_givenValidID_shouldNestEndpointServiceRepositoryAndJdbcSpans() throws InterruptedException {
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .when().get("/users/{id}/addresses")
+      .then()
+      .statusCode(200);
+
+    List<SpanData> spans = awaitSpan(span -> span.getKind() == SpanKind.SERVER);
+    SpanData server = spans.stream().filter(span -> span.getKind() == SpanKind.SERVER).findFirst().orElseThrow();
+    SpanData endpoint = named(spans, "UserEndpoint.getAllAddressesForUser").orElseThrow();
+    SpanData service = named(spans, "UserService.findUserAddresses").orElseThrow();
+    assertEquals(server.getSpanId(), endpoint.getParentSpanId());
+    assertEquals(endpoint.getSpanId(), service.getParentSpanId());
+    assertTrue(spans.stream().anyMatch(span -> span.getKind() == SpanKind.CLIENT
+        && "postgresql".equals(span.getAttributes().get(DB_SYSTEM))
+        && span.getTraceId().equals(server.getTraceId())),
+      "expected a JDBC span in the request's trace");
+  }
+
+  private static Optional<SpanData> named(List<SpanData> spans, String name) {
+    return spans.stream().filter(span -> span.getName().equals(name)).findFirst();
+  }
+
+  /**
+   * Spans are exported in batches after the response has been sent, so wait for the one that ends last.
+   */
+  private List<SpanData> awaitSpan(Predicate<SpanData> condition) throws InterruptedException {
+    for (int attempt = 0; attempt < 100; attempt++) {
+      List<SpanData> spans = spanExporter.getFinishedSpanItems();
+      if (spans.stream().anyMatch(condition)) {
+        return spans;
+      }
+      Thread.sleep(50);
+    }
+    throw new AssertionError("Span was not exported: " + spanExporter.getFinishedSpanItems());
+  }
+}
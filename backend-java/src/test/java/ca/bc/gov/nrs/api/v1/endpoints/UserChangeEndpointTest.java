@@ -0,0 +1,94 @@
+package ca.bc.gov.nrs.api.v1.endpoints;
+
+import ca.bc.gov.nrs.api.helpers.TestHelper;
+import ca.bc.gov.nrs.api.v1.entity.UserEntity;
+import ca.bc.gov.nrs.api.v1.service.UserChangeFeed;
+import ca.bc.gov.nrs.api.v1.structs.UserChange;
+import ca.bc.gov.nrs.api.v1.structs.UserChangePosition;
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.mutiny.helpers.test.AssertSubscriber;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+class UserChangeEndpointTest {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+  private final TestHelper testHelper;
+  private final UserChangeFeed userChangeFeed;
+
+  @Inject
+  UserChangeEndpointTest(TestHelper testHelper, UserChangeFeed userChangeFeed) {
+    this.testHelper = testHelper;
+    this.userChangeFeed = userChangeFeed;
+  }
+
+  @BeforeEach
+  void setup() {
+    testHelper.clearDatabase();
+  }
+
+  @Test
+  void testSubscribe_givenNewUserAndAddress_shouldPublishBothCreations() {
+    AssertSubscriber<UserChange> subscriber = userChangeFeed.subscribe(Optional.empty())
+      .subscribe().withSubscriber(AssertSubscriber.create(Long.MAX_VALUE));
+    UserEntity userEntity = testHelper.saveUser();
+    testHelper.saveUserAddress(userEntity);
+
+    List<UserChange> changes = subscriber.awaitItems(2, TIMEOUT).getItems();
+    subscriber.cancel();
+    assertEquals("user", changes.get(0).entity());
+    assertEquals("created", changes.get(0).operation());
+    assertEquals(userEntity.getId(), changes.get(0).entityId());
+    assertTrue(changes.get(0).data().contains(userEntity.getEmail()));
+    assertEquals("address", changes.get(1).entity());
+    assertEquals(userEntity.getId(), changes.get(1).userId());
+  }
+
+  @Test
+  void testSubscribe_givenPosition_shouldReplayChangesMadeSinceThen() {
+    AssertSubscriber<UserChange> first = userChangeFeed.subscribe(Optional.empty())
+      .subscribe().withSubscriber(AssertSubscriber.create(Long.MAX_VALUE));
+    UserEntity userEntity = testHelper.saveUser();
+    UserChange created = first.awaitItems(1, TIMEOUT).getItems().get(0);
+    testHelper.clearDatabase();
+    first.awaitItems(2, TIMEOUT).cancel();
+
+    AssertSubscriber<UserChange> resumed = userChangeFeed.subscribe(Optional.of(UserChangePosition.parse(created.position())))
+      .subscribe().withSubscriber(AssertSubscriber.create(Long.MAX_VALUE));
+    UserChange deleted = resumed.awaitItems(1, TIMEOUT).getItems().get(0);
+    resumed.cancel();
+    assertEquals("deleted", deleted.operation());
+    assertEquals(userEntity.getId(), deleted.entityId());
+  }
+
+  @Test
+  void testStreamChanges_givenPurgedLastEventId_shouldReturnGone() {
+    given()
+      .basePath("/api/v1")
+      .header("Last-Event-ID", new UserChangePosition(1, 1).toString())
+      .when().get("/users/changes")
+      .then()
+      .statusCode(410);
+  }
+
+  @Test
+  void testStreamChanges_givenMalformedLastEventId_shouldReturnBadRequest() {
+    given()
+      .basePath("/api/v1")
+      .header("Last-Event-ID", "not-a-position")
+      .when().get("/users/changes")
+      .then()
+      .statusCode(400);
+  }
+}
@@ -4,8 +4,16 @@ import ca.bc.gov.nrs.api.helpers.TestHelper;
 import ca.bc.gov.nrs.api.v1.entity.UserAddressEntity;
 import ca.bc.gov.nrs.api.v1.entity.UserEntity;
 import ca.bc.gov.nrs.api.v1.repository.UserRepository;
+import ca.bc.gov.nrs.api.v1.service.UserService;
 import ca.bc.gov.nrs.api.v1.structs.User;
 import ca.bc.gov.nrs.api.v1.structs.UserAddress;
+import ca.bc.gov.nrs.api.v1.structs.UserWithAddresses;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.cache.CaffeineCache;
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import io.quarkus.test.junit.QuarkusTest;
 import io.restassured.http.ContentType;
 import jakarta.inject.Inject;
@@ -13,54 +21,671 @@ import net.datafaker.Faker;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @QuarkusTest
 class UserEndpointTest {
 
   private final TestHelper testHelper;
   private final UserRepository userRepository;
+  private final UserService userService;
+  private final Cache usersCache;
+  private final ObjectMapper objectMapper;
   private final Faker faker = new Faker();
   UserEntity userEntity;
   UserAddressEntity addressEntity;
 
   @Inject
-  UserEndpointTest(TestHelper testHelper, UserRepository userRepository) {
+  UserEndpointTest(TestHelper testHelper, UserRepository userRepository, UserService userService,
+                   @CacheName("users") Cache usersCache, ObjectMapper objectMapper) {
     this.testHelper = testHelper;
+    this.objectMapper = objectMapper;
     this.userRepository = userRepository;
+    this.userService = userService;
+    this.usersCache = usersCache;
+  }
+
+  @BeforeEach
+  void setup() {
+    testHelper.clearDatabase();
+    var user = testHelper.saveUser();
+    testHelper.saveUserAddress(user);
+    userEntity = this.userRepository.findAll().stream().findFirst().orElseThrow();
+    addressEntity = this.userRepository.findAll().stream().findFirst().orElseThrow().getAddresses().stream().findFirst().orElseThrow();
+  }
+
+  @Test
+  void testGetAllUsers_noCondition_shouldReturnAllUsersAndStatusOK() {
+    this.testHelper.saveUsers(10);
+    given()
+      .basePath("/api/v1")
+      .when().get("/users")
+      .then()
+      .statusCode(200)
+      .body("$.size()", equalTo(11));
+  }
+
+  @Test
+  void testGetAllUsers_givenGzipAcceptedAndLargePage_shouldCompressTheResponse() {
+    this.testHelper.saveUsers(50);
+    given()
+      .basePath("/api/v1")
+      .header("Accept-Encoding", "gzip")
+      .when().get("/users")
+      .then()
+      .statusCode(200)
+      .header("Content-Encoding", equalTo("gzip"))
+      .body("$.size()", equalTo(51));
+  }
+
+  @Test
+  void testGetUserById_givenGzipAcceptedAndSmallBody_shouldNotCompressTheResponse() {
+    given()
+      .basePath("/api/v1")
+      .header("Accept-Encoding", "gzip")
+      .pathParam("id", userEntity.getId())
+      .when().get("/users/{id}")
+      .then()
+      .statusCode(200)
+      .header("Content-Encoding", not(equalTo("gzip")));
+  }
+
+  @Test
+  void testGetAllUsers_givenCborAccepted_shouldReturnTheSameUsersAsCbor() throws IOException {
+    this.testHelper.saveUsers(2);
+    byte[] body = given()
+      .basePath("/api/v1")
+      .accept(CborMessageBodyWriter.MEDIA_TYPE)
+      .when().get("/users")
+      .then()
+      .statusCode(200)
+      .contentType(CborMessageBodyWriter.MEDIA_TYPE)
+      .extract().asByteArray();
+    User[] users = new CBORMapper().readValue(body, User[].class);
+    assertEquals(3, users.length);
+    assertEquals(userEntity.getEmail(), users[0].email());
+  }
+
+  @Test
+  void testExportUsers_givenCsvAccepted_shouldReturnOneRowPerAddressAfterTheHeader() {
+    this.testHelper.saveUser();
+    String csv = given()
+      .basePath("/api/v1")
+      .accept("text/csv")
+      .when().get("/users/export")
+      .then()
+      .statusCode(200)
+      .header("Content-Disposition", containsString("users.csv"))
+      .extract().asString();
+    List<String> lines = csv.lines().toList();
+    assertEquals("user_id,name,email,address_id,street,city,state,zip_code", lines.get(0));
+    assertEquals(3, lines.size());
+    assertTrue(lines.get(1).startsWith(userEntity.getId() + ","));
+  }
+
+  @Test
+  void testExportUsers_givenNdjsonAccepted_shouldReturnOneUserPerLineWithAddresses() throws IOException {
+    this.testHelper.saveUser();
+    String ndjson = given()
+      .basePath("/api/v1")
+      .accept("application/x-ndjson")
+      .when().get("/users/export")
+      .then()
+      .statusCode(200)
+      .extract().asString();
+    List<String> lines = ndjson.lines().toList();
+    assertEquals(2, lines.size());
+    UserWithAddresses first = objectMapper.readValue(lines.get(0), UserWithAddresses.class);
+    assertEquals(userEntity.getEmail(), first.email());
+    assertEquals(addressEntity.getId(), first.addresses().get(0).id());
+    // Versions are only exposed as ETags, as in expand=addresses
+    assertFalse(lines.get(0).contains("\"version\""), lines.get(0));
+    assertEquals(0, objectMapper.readValue(lines.get(1), UserWithAddresses.class).addresses().size());
+  }
+
+  @Test
+  void testGetAllUsers_givenIds_shouldReturnFoundUsersInRequestOrderAndMissingIds() {
+    var users = this.testHelper.saveUsers(2);
+    given()
+      .basePath("/api/v1")
+      .queryParam("ids", users.get(1).getId() + ",0," + users.get(0).getId())
+      .queryParam("ids", users.get(1).getId())
+      .when().get("/users")
+      .then()
+      .statusCode(200)
+      .body("users.id", contains(users.get(1).getId().intValue(), users.get(0).getId().intValue()))
+      .body("missing", contains(0));
+  }
+
+  @Test
+  void testGetAllUsers_givenMalformedId_shouldReturnBadRequest() {
+    given()
+      .basePath("/api/v1")
+      .queryParam("ids", "1,abc")
+      .when().get("/users")
+      .then()
+      .statusCode(400);
+  }
+
+  @Test
+  void testLookupUsers_givenIdsAndExpandAddresses_shouldNestAddresses() {
+    given()
+      .basePath("/api/v1")
+      .contentType(ContentType.JSON)
+      .queryParam("expand", "addresses")
+      .body("{\"ids\": [" + userEntity.getId() + ", 0]}")
+      .when().post("/users/lookup")
+      .then()
+      .statusCode(200)
+      .body("users[0].email", equalTo(userEntity.getEmail()))
+      .body("users[0].addresses[0].id", equalTo(addressEntity.getId().intValue()))
+      .body("missing", contains(0));
+  }
+
+  @Test
+  void testLookupUsers_givenNoIds_shouldReturnBadRequest() {
+    given()
+      .basePath("/api/v1")
+      .contentType(ContentType.JSON)
+      .body("{\"ids\": []}")
+      .when().post("/users/lookup")
+      .then()
+      .statusCode(400);
+  }
+
+  @Test
+  void testGetAllUsers_givenLimit_shouldReturnFirstPageWithNextLink() {
+    this.testHelper.saveUsers(10);
+    given()
+      .basePath("/api/v1")
+      .queryParam("limit", 5)
+      .when().get("/users")
+      .then()
+      .statusCode(200)
+      .header("Link", containsString("rel=\"next\""))
+      .body("$.size()", equalTo(5))
+      .body("[0].id", equalTo(userEntity.getId().intValue()));
+  }
+
+  @Test
+  void testGetAllUsers_givenAfterLastId_shouldReturnEmptyPageWithoutNextLink() {
+    var users = this.testHelper.saveUsers(3);
+    given()
+      .basePath("/api/v1")
+      .queryParam("after", users.getLast().getId())
+      .when().get("/users")
+      .then()
+      .statusCode(200)
+      .header("Link", nullValue())
+      .body("$.size()", equalTo(0));
+  }
+
+  @Test
+  void testGetAllUsers_givenLimitAboveMaximum_shouldReturnStatusBadRequest() {
+    given()
+      .basePath("/api/v1")
+      .queryParam("limit", 5000)
+      .when().get("/users")
+      .then()
+      .statusCode(400);
+  }
+
+  @Test
+  void testGetAllUsers_givenEmail_shouldReturnOnlyThatUser() {
+    this.testHelper.saveUsers(5);
+    given()
+      .basePath("/api/v1")
+      .queryParam("email", userEntity.getEmail())
+      .when().get("/users")
+      .then()
+      .statusCode(200)
+      .body("$.size()", equalTo(1))
+      .body("[0].id", equalTo(userEntity.getId().intValue()));
+  }
+
+  @Test
+  void testGetAllUsers_givenNamePrefixWithWildcards_shouldMatchThemLiterally() {
+    this.testHelper.saveUser("100% Real_Name", "real@example.com");
+    this.testHelper.saveUser("1000 Real Name", "other@example.com");
+    given()
+      .basePath("/api/v1")
+      .queryParam("namePrefix", "100%")
+      .when().get("/users")
+      .then()
+      .statusCode(200)
+      .body("$.size()", equalTo(1))
+      .body("[0].name", equalTo("100% Real_Name"));
+    given()
+      .basePath("/api/v1")
+      .queryParam("emailPrefix", "real@")
+      .queryParam("namePrefix", "100% Real_")
+      .when().get("/users")
+      .then()
+      .statusCode(200)
+      .body("$.size()", equalTo(1));
+  }
+
+  @Test
+  void testGetAllUsers_givenExpandAddresses_shouldNestEachUsersAddresses() {
+    var users = this.testHelper.saveUsers(2);
+    this.testHelper.saveUserAddress(users.getFirst());
+    given()
+      .basePath("/api/v1")
+      .queryParam("expand", "addresses")
+      .when().get("/users")
+      .then()
+      .statusCode(200)
+      .body("$.size()", equalTo(3))
+      .body("[0].addresses.size()", equalTo(1))
+      .body("[0].addresses[0].id", equalTo(addressEntity.getId().intValue()))
+      .body("[1].addresses.size()", equalTo(1))
+      .body("[2].addresses.size()", equalTo(0));
+  }
+
+  @Test
+  void testGetAllUsers_givenUnknownExpansion_shouldReturnStatusBadRequest() {
+    given()
+      .basePath("/api/v1")
+      .queryParam("expand", "addresses,friends")
+      .when().get("/users")
+      .then()
+      .statusCode(400);
+  }
+
+  @Test
+  void testGetUserById_givenExpandAddresses_shouldNestTheAddressesAndTagBoth() {
+    String etag = given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .queryParam("expand", "addresses")
+      .when().get("/users/{id}")
+      .then()
+      .statusCode(200)
+      .body("id", equalTo(userEntity.getId().intValue()))
+      .body("addresses[0].street", equalTo(addressEntity.getStreet()))
+      .extract().header("ETag");
+    this.testHelper.saveUserAddress(userEntity);
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .queryParam("expand", "addresses")
+      .header("If-None-Match", etag)
+      .when().get("/users/{id}")
+      .then()
+      .statusCode(200)
+      .body("addresses.size()", equalTo(2));
+  }
+
+  @Test
+  void testStreamAllUsers_noCondition_shouldReturnAllUsersAndStatusOK() {
+    this.testHelper.saveUsers(10);
+    given()
+      .basePath("/api/v1")
+      .when().get("/users/stream")
+      .then()
+      .statusCode(200)
+      .body("$.size()", equalTo(11))
+      .body("[0].id", equalTo(userEntity.getId().intValue()));
+  }
+
+  @Test
+  void testStreamAllUsers_givenFinishedStreams_shouldReleaseTheirPermits() {
+    // Only one stream may run at a time in tests, so each one must give its permit back once written
+    for (int i = 0; i < 3; i++) {
+      given()
+        .basePath("/api/v1")
+        .when().get("/users/stream")
+        .then()
+        .statusCode(200)
+        .body("$.size()", equalTo(1));
+    }
+  }
+
+  @Test
+  void testGetUserById_givenValidID_shouldReturnTheUserAndStatusOK() {
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .when().get("/users/{id}")
+      .then()
+      .statusCode(200)
+      .body("name", equalTo(userEntity.getName()))
+      .body("email", equalTo(userEntity.getEmail()));
+  }
+
+  @Test
+  void testGetUserById_givenRepeatedCalls_shouldServeTheUserFromCache() {
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .when().get("/users/{id}")
+      .then()
+      .statusCode(200);
+    assertTrue(usersCache.as(CaffeineCache.class).keySet().contains(userEntity.getId()));
+  }
+
+  @Test
+  void testUpdateUser_givenCachedUser_shouldInvalidateTheCacheOnlyAfterCommit() {
+    userService.findUserById(userEntity.getId());
+    QuarkusTransaction.requiringNew().run(() -> {
+      userService.update(userEntity.getId(), new User(userEntity.getId(), faker.name().fullName(), userEntity.getEmail(), null), null);
+      assertTrue(usersCache.as(CaffeineCache.class).keySet().contains(userEntity.getId()));
+    });
+    assertFalse(usersCache.as(CaffeineCache.class).keySet().contains(userEntity.getId()));
+  }
+
+  @Test
+  void testUpdateUserAddress_givenReadDuringTheWrite_shouldNotKeepTheOldAddressCached() throws Exception {
+    var street = faker.address().streetAddress();
+    QuarkusTransaction.requiringNew().run(() -> {
+      userService.updateUserAddress(userEntity.getId(), addressEntity.getId(), new UserAddress(addressEntity.getId(),
+        street, addressEntity.getCity(), addressEntity.getState(), addressEntity.getZipCode(), userEntity.getId(), null), null);
+      // Another request still sees, and caches, the committed address while the write is in flight
+      var concurrentRead = CompletableFuture.supplyAsync(() -> userService.findUserAddress(userEntity.getId(), addressEntity.getId()));
+      assertEquals(addressEntity.getStreet(), assertDoesNotThrow(() -> concurrentRead.get(10, TimeUnit.SECONDS)).orElseThrow().street());
+    });
+    assertEquals(street, userService.findUserAddress(userEntity.getId(), addressEntity.getId()).orElseThrow().street());
+  }
+
+  @Test
+  void testGetUserById_givenUpdatedUser_shouldReturnTheUpdatedUser() {
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .when().get("/users/{id}")
+      .then()
+      .statusCode(200);
+    var name = faker.name().fullName();
+    given()
+      .basePath("/api/v1")
+      .contentType(ContentType.JSON)
+      .pathParam("id", userEntity.getId())
+      .body(new User(userEntity.getId(), name, userEntity.getEmail(), null))
+      .when().put("/users/{id}")
+      .then()
+      .statusCode(200);
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .when().get("/users/{id}")
+      .then()
+      .statusCode(200)
+      .body("name", equalTo(name));
+  }
+
+  @Test
+  void testGetUserById_givenDeletedUser_shouldReturnStatusNotFound() {
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .when().get("/users/{id}")
+      .then()
+      .statusCode(200);
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .when().delete("/users/{id}")
+      .then()
+      .statusCode(204);
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .when().get("/users/{id}")
+      .then()
+      .statusCode(404);
+  }
+
+  @Test
+  void testGetUserAddressById_givenUpdatedAddress_shouldReturnTheUpdatedAddress() {
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .pathParam("addressId", addressEntity.getId())
+      .when().get("/users/{id}/addresses/{addressId}")
+      .then()
+      .statusCode(200);
+    var street = faker.address().streetAddress();
+    given()
+      .basePath("/api/v1")
+      .contentType(ContentType.JSON)
+      .pathParam("id", userEntity.getId())
+      .pathParam("addressId", addressEntity.getId())
+      .body(new UserAddress(addressEntity.getId(), street, addressEntity.getCity(), addressEntity.getState(),
+        addressEntity.getZipCode(), userEntity.getId(), null))
+      .when().put("/users/{id}/addresses/{addressId}")
+      .then()
+      .statusCode(200);
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .pathParam("addressId", addressEntity.getId())
+      .when().get("/users/{id}/addresses/{addressId}")
+      .then()
+      .statusCode(200)
+      .body("street", equalTo(street));
+  }
+
+  @Test
+  void testGetUserById_givenMatchingIfNoneMatch_shouldReturnStatusNotModified() {
+    String etag = given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .when().get("/users/{id}")
+      .then()
+      .statusCode(200)
+      .header("ETag", notNullValue())
+      .extract().header("ETag");
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .header("If-None-Match", etag)
+      .when().get("/users/{id}")
+      .then()
+      .statusCode(304);
+  }
+
+  @Test
+  void testPatchUser_givenName_shouldChangeOnlyTheNameAndBumpTheETag() {
+    String etag = given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .when().get("/users/{id}")
+      .then()
+      .statusCode(200)
+      .extract().header("ETag");
+    String patchedEtag = given()
+      .basePath("/api/v1")
+      .contentType("application/merge-patch+json")
+      .pathParam("id", userEntity.getId())
+      .header("If-Match", etag)
+      .body("{\"name\": \"Patched Name\"}")
+      .when().patch("/users/{id}")
+      .then()
+      .statusCode(200)
+      .body("name", equalTo("Patched Name"))
+      .body("email", equalTo(userEntity.getEmail()))
+      .extract().header("ETag");
+    assertNotEquals(etag, patchedEtag);
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .when().get("/users/{id}")
+      .then()
+      .statusCode(200)
+      .header("ETag", equalTo(patchedEtag))
+      .body("name", equalTo("Patched Name"));
+    given()
+      .basePath("/api/v1")
+      .contentType("application/merge-patch+json")
+      .pathParam("id", userEntity.getId())
+      .header("If-Match", etag)
+      .body("{\"name\": \"Stale Name\"}")
+      .when().patch("/users/{id}")
+      .then()
+      .statusCode(412);
+  }
+
+  @Test
+  void testPatchUser_givenInvalidPatch_shouldReturnStatusBadRequest() {
+    for (String patch : List.of("{\"email\": \"not-an-email\"}", "{\"name\": null}", "{\"id\": 5}", "[]")) {
+      given()
+        .basePath("/api/v1")
+        .contentType("application/merge-patch+json")
+        .pathParam("id", userEntity.getId())
+        .body(patch)
+        .when().patch("/users/{id}")
+        .then()
+        .statusCode(400);
+    }
+  }
+
+  @Test
+  void testPatchUser_givenRandomID_shouldReturnStatusNotFound() {
+    given()
+      .basePath("/api/v1")
+      .contentType("application/merge-patch+json")
+      .pathParam("id", 20000)
+      .body("{\"name\": \"Nobody\"}")
+      .when().patch("/users/{id}")
+      .then()
+      .statusCode(404);
+  }
+
+  @Test
+  void testPatchUserAddress_givenCity_shouldChangeOnlyTheCity() {
+    given()
+      .basePath("/api/v1")
+      .contentType("application/merge-patch+json")
+      .pathParam("id", userEntity.getId())
+      .pathParam("addressId", addressEntity.getId())
+      .body("{\"city\": \"Kamloops\"}")
+      .when().patch("/users/{id}/addresses/{addressId}")
+      .then()
+      .statusCode(200)
+      .body("city", equalTo("Kamloops"))
+      .body("street", equalTo(addressEntity.getStreet()));
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .pathParam("addressId", addressEntity.getId())
+      .when().get("/users/{id}/addresses/{addressId}")
+      .then()
+      .statusCode(200)
+      .body("city", equalTo("Kamloops"));
   }
 
-  @BeforeEach
-  void setup() {
-    testHelper.clearDatabase();
-    var user = testHelper.saveUser();
-    testHelper.saveUserAddress(user);
-    userEntity = this.userRepository.findAll().stream().findFirst().orElseThrow();
-    addressEntity = this.userRepository.findAll().stream().findFirst().orElseThrow().getAddresses().stream().findFirst().orElseThrow();
+  @Test
+  void testUpdateUser_givenStaleIfMatch_shouldReturnStatusPreconditionFailed() {
+    String etag = given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .when().get("/users/{id}")
+      .then()
+      .statusCode(200)
+      .extract().header("ETag");
+    String updatedEtag = given()
+      .basePath("/api/v1")
+      .contentType(ContentType.JSON)
+      .pathParam("id", userEntity.getId())
+      .header("If-Match", etag)
+      .body(new User(userEntity.getId(), faker.name().fullName(), userEntity.getEmail(), null))
+      .when().put("/users/{id}")
+      .then()
+      .statusCode(200)
+      .extract().header("ETag");
+    assertNotEquals(etag, updatedEtag);
+    given()
+      .basePath("/api/v1")
+      .contentType(ContentType.JSON)
+      .pathParam("id", userEntity.getId())
+      .header("If-Match", etag)
+      .body(new User(userEntity.getId(), faker.name().fullName(), userEntity.getEmail(), null))
+      .when().put("/users/{id}")
+      .then()
+      .statusCode(412);
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .header("If-Match", etag)
+      .when().delete("/users/{id}")
+      .then()
+      .statusCode(412);
   }
 
   @Test
-  void testGetAllUsers_noCondition_shouldReturnAllUsersAndStatusOK() {
-    this.testHelper.saveUsers(10);
-    given()
+  void testGetUserAddresses_givenMatchingIfNoneMatch_shouldReturnStatusNotModifiedUntilAnAddressChanges() {
+    String etag = given()
       .basePath("/api/v1")
-      .when().get("/users")
+      .pathParam("id", userEntity.getId())
+      .when().get("/users/{id}/addresses")
       .then()
       .statusCode(200)
-      .body("$.size()", equalTo(11));
+      .extract().header("ETag");
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .header("If-None-Match", etag)
+      .when().get("/users/{id}/addresses")
+      .then()
+      .statusCode(304);
+    given()
+      .basePath("/api/v1")
+      .contentType(ContentType.JSON)
+      .pathParam("id", userEntity.getId())
+      .pathParam("addressId", addressEntity.getId())
+      .body(new UserAddress(addressEntity.getId(), faker.address().streetAddress(), addressEntity.getCity(),
+        addressEntity.getState(), addressEntity.getZipCode(), userEntity.getId(), null))
+      .when().put("/users/{id}/addresses/{addressId}")
+      .then()
+      .statusCode(200);
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .header("If-None-Match", etag)
+      .when().get("/users/{id}/addresses")
+      .then()
+      .statusCode(200);
   }
 
   @Test
-  void testGetUserById_givenValidID_shouldReturnTheUserAndStatusOK() {
+  void testDeleteUserAddress_givenStaleIfMatch_shouldReturnStatusPreconditionFailed() {
     given()
       .basePath("/api/v1")
       .pathParam("id", userEntity.getId())
-      .when().get("/users/{id}")
+      .pathParam("addressId", addressEntity.getId())
+      .header("If-Match", "\"" + (addressEntity.getVersion() + 1) + "\"")
+      .when().delete("/users/{id}/addresses/{addressId}")
       .then()
-      .statusCode(200)
-      .body("name", equalTo(userEntity.getName()))
-      .body("email", equalTo(userEntity.getEmail()));
+      .statusCode(412);
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .pathParam("addressId", addressEntity.getId())
+      .header("If-Match", "\"" + addressEntity.getVersion() + "\"")
+      .when().delete("/users/{id}/addresses/{addressId}")
+      .then()
+      .statusCode(204);
   }
 
   @Test
@@ -73,11 +698,98 @@ class UserEndpointTest {
       .statusCode(404);
   }
 
+  @Test
+  void testGetUserById_givenAnyCall_shouldRecordServiceAndConnectionWaitMetrics() {
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", 20000)
+      .when().get("/users/{id}")
+      .then()
+      .statusCode(404);
+    given()
+      .when().get("/q/metrics")
+      .then()
+      .statusCode(200)
+      .body(containsString("api_users_service_seconds_count"))
+      .body(containsString("agroal_blocking_time"));
+  }
+
+  @Test
+  void testGetUserAddresses_givenCborAccepted_shouldTagTheCborBodyApartAndVaryOnAccept() {
+    String jsonEtag = given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .accept(ContentType.JSON)
+      .when().get("/users/{id}/addresses")
+      .then()
+      .statusCode(200)
+      .header("Vary", containsString("Accept"))
+      .extract().header("ETag");
+    String cborEtag = given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .accept(CborMessageBodyWriter.MEDIA_TYPE)
+      .when().get("/users/{id}/addresses")
+      .then()
+      .statusCode(200)
+      .contentType(CborMessageBodyWriter.MEDIA_TYPE)
+      .header("Vary", containsString("Accept"))
+      .extract().header("ETag");
+    assertNotEquals(jsonEtag, cborEtag);
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .accept(CborMessageBodyWriter.MEDIA_TYPE)
+      .header("If-None-Match", jsonEtag)
+      .when().get("/users/{id}/addresses")
+      .then()
+      .statusCode(200);
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .accept(CborMessageBodyWriter.MEDIA_TYPE)
+      .header("If-None-Match", cborEtag)
+      .when().get("/users/{id}/addresses")
+      .then()
+      .statusCode(304);
+  }
+
+  @Test
+  void testGetUserAddresses_givenAnyCall_shouldRecordSqlStatementsPerResourceMethod() {
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .when().get("/users/{id}/addresses")
+      .then()
+      .statusCode(200);
+    given()
+      .when().get("/q/metrics")
+      .then()
+      .statusCode(200)
+      .body(containsString("api_http_sql_statements_count{method=\"GET\",resource=\"UserEndpoint.getAllAddressesForUser\"}"))
+      .body(containsString("hibernate_sessions_open"))
+      .body(containsString("http_server_requests_seconds_bucket"));
+  }
+
+  @Test
+  void testStreamAllUsers_givenAnyCall_shouldNotRecordSqlStatementsBeforeTheBodyIsWritten() {
+    given()
+      .basePath("/api/v1")
+      .when().get("/users/stream")
+      .then()
+      .statusCode(200);
+    given()
+      .when().get("/q/metrics")
+      .then()
+      .statusCode(200)
+      .body(not(containsString("resource=\"UserEndpoint.streamAllUsers\"")));
+  }
+
   @Test
   void testCreateUser_givenValidPayload_shouldReturnStatusCreated() {
     var name = faker.name().fullName();
     var email = faker.internet().emailAddress();
-    User user = new User(null, name, email);
+    User user = new User(null, name, email, null);
     given()
       .basePath("/api/v1")
       .contentType(ContentType.JSON)
@@ -93,7 +805,7 @@ class UserEndpointTest {
   void testCreateUser_givenInValidPayload_shouldReturnStatusBadRequest() {
     var name = faker.name().fullName();
     var email = faker.internet().domainName();
-    User user = new User(null, name, email);
+    User user = new User(null, name, email, null);
     given()
       .basePath("/api/v1")
       .contentType(ContentType.JSON)
@@ -103,11 +815,87 @@ class UserEndpointTest {
       .statusCode(400);
   }
 
+  @Test
+  void testImportUsers_givenJsonArrayWithBadRows_shouldCreateTheValidUsersAndReportTheRest() {
+    var users = List.of(
+      new User(null, faker.name().fullName(), faker.internet().emailAddress(), null),
+      new User(null, faker.name().fullName(), faker.internet().domainName(), null),
+      new User(null, faker.name().fullName(), userEntity.getEmail(), null),
+      new User(null, faker.name().fullName(), faker.internet().emailAddress(), null));
+    given()
+      .basePath("/api/v1")
+      .contentType(ContentType.JSON)
+      .body(users)
+      .when().post("/users/bulk")
+      .then()
+      .statusCode(200)
+      .body("created", equalTo(2))
+      .body("rejected", equalTo(2))
+      .body("results.index", contains(0, 1, 2, 3))
+      .body("results[0].id", notNullValue())
+      .body("results[1].errors", contains("Email should be valid"))
+      .body("results[2].errors[0]", containsString("users_email_key"))
+      .body("results[3].id", notNullValue());
+    given()
+      .basePath("/api/v1")
+      .when().get("/users")
+      .then()
+      .statusCode(200)
+      .body("$.size()", equalTo(3));
+  }
+
+  @Test
+  void testImportUsers_givenNdjson_shouldCreateAllUsers() {
+    var body = Stream.generate(() -> new User(null, faker.name().fullName(), faker.internet().emailAddress(), null))
+      .limit(5)
+      .map(user -> "{\"name\":\"" + user.name() + "\",\"email\":\"" + user.email() + "\"}")
+      .collect(Collectors.joining("\n"));
+    given()
+      .basePath("/api/v1")
+      .contentType("application/x-ndjson")
+      .body(body)
+      .when().post("/users/bulk")
+      .then()
+      .statusCode(200)
+      .body("created", equalTo(5))
+      .body("rejected", equalTo(0));
+  }
+
+  @Test
+  void testImportUsers_givenPayloadThatIsNotJson_shouldReturnStatusBadRequest() {
+    given()
+      .basePath("/api/v1")
+      .contentType(ContentType.JSON)
+      .body("not json")
+      .when().post("/users/bulk")
+      .then()
+      .statusCode(400);
+  }
+
+  @Test
+  void testImportUsers_givenMalformedJsonPartwayThrough_shouldSaveTheUsersBeforeItAndRejectFromThere() {
+    var body = Stream.generate(() -> new User(null, faker.name().fullName(), faker.internet().emailAddress(), null))
+      .limit(3)
+      .map(user -> "{\"name\":\"" + user.name() + "\",\"email\":\"" + user.email() + "\"}")
+      .collect(Collectors.joining("\n")) + "\n{\"name\":";
+    given()
+      .basePath("/api/v1")
+      .contentType("application/x-ndjson")
+      .body(body)
+      .when().post("/users/bulk")
+      .then()
+      .statusCode(200)
+      .body("created", equalTo(3))
+      .body("rejected", equalTo(1))
+      .body("results[3].index", equalTo(3))
+      .body("results[3].errors[0]", containsString("not valid JSON"));
+  }
+
   @Test
   void testUpdateUser_givenValidPayload_shouldReturnStatusOK() {
     var name = faker.name().fullName();
     var email = faker.internet().emailAddress();
-    User user = new User(userEntity.getId(), name, email);
+    User user = new User(userEntity.getId(), name, email, null);
     given()
       .basePath("/api/v1")
       .contentType(ContentType.JSON)
@@ -151,13 +939,53 @@ class UserEndpointTest {
       .body("$.size()", equalTo(1));
   }
 
+  @Test
+  void testGetUserAddressById_givenValidIDs_shouldReturnTheUserAddressAndStatusOK() {
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .pathParam("addressId", addressEntity.getId())
+      .when().get("/users/{id}/addresses/{addressId}")
+      .then()
+      .statusCode(200)
+      .body("street", equalTo(addressEntity.getStreet()))
+      .body("userId", equalTo(userEntity.getId().intValue()));
+  }
+
+  @Test
+  void testGetUserAddressById_givenAddressOfAnotherUser_shouldReturnStatusNotFound() {
+    var otherUser = testHelper.saveUser();
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", otherUser.getId())
+      .pathParam("addressId", addressEntity.getId())
+      .when().get("/users/{id}/addresses/{addressId}")
+      .then()
+      .statusCode(404);
+  }
+
+  @Test
+  void testCreateUserAddress_givenCachedMissForTheUser_shouldCheckThePrimaryAndReturnStatusCreated() {
+    // What a lagging replica would have left behind for a user created a moment ago
+    usersCache.as(CaffeineCache.class).put(userEntity.getId(), CompletableFuture.completedFuture(Optional.empty()));
+    given()
+      .basePath("/api/v1")
+      .contentType(ContentType.JSON)
+      .pathParam("id", userEntity.getId())
+      .body(new UserAddress(null, faker.address().streetAddress(), faker.address().city(), faker.address().state(),
+        faker.address().zipCode(), userEntity.getId(), null))
+      .when().post("/users/{id}/addresses")
+      .then()
+      .statusCode(201);
+  }
+
   @Test
   void testCreateUserAddress_givenValidPayload_shouldCreateTheUserAddressAndReturnStatusCreated() {
     var street = faker.address().streetAddress();
     var city =faker.address().city();
     var state =faker.address().state();
     var zipCode= faker.address().zipCode();
-    UserAddress userAddress = new UserAddress(null, street, city, state, zipCode, userEntity.getId());
+    UserAddress userAddress = new UserAddress(null, street, city, state, zipCode, userEntity.getId(), null);
     given()
       .basePath("/api/v1")
       .contentType(ContentType.JSON)
@@ -178,7 +1006,7 @@ class UserEndpointTest {
     var city =faker.address().city();
     var state =faker.address().state();
     var zipCode= faker.address().zipCode();
-    UserAddress userAddress = new UserAddress(addressEntity.getId(), street, city, state, zipCode, userEntity.getId());
+    UserAddress userAddress = new UserAddress(addressEntity.getId(), street, city, state, zipCode, userEntity.getId(), null);
     given()
       .basePath("/api/v1")
       .contentType(ContentType.JSON)
@@ -191,7 +1019,9 @@ class UserEndpointTest {
       .body("street", equalTo(street))
       .body("city", equalTo(city))
       .body("state", equalTo(state))
-      .body("zipCode", equalTo(zipCode));
+      .body("zipCode", equalTo(zipCode))
+      .body("version", equalTo(addressEntity.getVersion().intValue() + 1))
+      .header("ETag", equalTo("\"" + (addressEntity.getVersion() + 1) + "\""));
   }
 
   @Test
@@ -204,4 +1034,141 @@ class UserEndpointTest {
       .then()
       .statusCode(204);
   }
+
+  @Test
+  void testReplaceUserAddresses_givenChangedAndNewAddresses_shouldMakeThemTheUsersAddresses() {
+    UserAddressEntity droppedAddress = testHelper.saveUserAddress(userEntity, faker.address().city(),
+      faker.address().state(), faker.address().zipCode());
+    var street = faker.address().streetAddress();
+    var newCity = faker.address().city();
+    List<UserAddress> addresses = List.of(
+      new UserAddress(addressEntity.getId(), street, addressEntity.getCity(), addressEntity.getState(),
+        addressEntity.getZipCode(), userEntity.getId(), null),
+      new UserAddress(null, faker.address().streetAddress(), newCity, faker.address().state(),
+        faker.address().zipCode(), null, null));
+    String etag = given()
+      .basePath("/api/v1")
+      .contentType(ContentType.JSON)
+      .pathParam("id", userEntity.getId())
+      .body(addresses)
+      .when().put("/users/{id}/addresses")
+      .then()
+      .statusCode(200)
+      .body("$.size()", equalTo(2))
+      .body("[0].id", equalTo(addressEntity.getId().intValue()))
+      .body("[0].street", equalTo(street))
+      .body("[1].city", equalTo(newCity))
+      .body("[1].userId", equalTo(userEntity.getId().intValue()))
+      .body("id", not(hasItem(droppedAddress.getId().intValue())))
+      .extract().header("ETag");
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .header("If-None-Match", etag)
+      .when().get("/users/{id}/addresses")
+      .then()
+      .statusCode(304);
+  }
+
+  @Test
+  void testReplaceUserAddresses_givenStaleIfMatch_shouldReturnStatusPreconditionFailed() {
+    String etag = given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .when().get("/users/{id}/addresses")
+      .then()
+      .statusCode(200)
+      .extract().header("ETag");
+    testHelper.saveUserAddress(userEntity);
+    given()
+      .basePath("/api/v1")
+      .contentType(ContentType.JSON)
+      .pathParam("id", userEntity.getId())
+      .header("If-Match", etag)
+      .body(List.of())
+      .when().put("/users/{id}/addresses")
+      .then()
+      .statusCode(412);
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .when().get("/users/{id}/addresses")
+      .then()
+      .statusCode(200)
+      .body("$.size()", equalTo(2));
+  }
+
+  @Test
+  void testReplaceUserAddresses_givenConcurrentReplaceWithTheSameIfMatch_shouldRejectTheLaterOne() throws Exception {
+    String etag = given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .when().get("/users/{id}/addresses")
+      .then()
+      .statusCode(200)
+      .extract().header("ETag");
+    AtomicReference<CompletableFuture<Integer>> later = new AtomicReference<>();
+    QuarkusTransaction.requiringNew().run(() -> {
+      List<UserAddress> addresses = List.of(UserAddress.toUserAddressRecord(addressEntity),
+        new UserAddress(null, faker.address().streetAddress(), faker.address().city(), faker.address().state(),
+          faker.address().zipCode(), null, null));
+      userService.replaceUserAddresses(userEntity.getId(), addresses, current -> true);
+      // The later request waits on the user row lock until this transaction commits
+      later.set(CompletableFuture.supplyAsync(() -> given()
+        .basePath("/api/v1")
+        .contentType(ContentType.JSON)
+        .pathParam("id", userEntity.getId())
+        .header("If-Match", etag)
+        .body(List.of())
+        .when().put("/users/{id}/addresses")
+        .then().extract().statusCode()));
+      try {
+        Thread.sleep(500);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    assertEquals(412, later.get().get(10, TimeUnit.SECONDS));
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .when().get("/users/{id}/addresses")
+      .then()
+      .statusCode(200)
+      .body("$.size()", equalTo(2));
+  }
+
+  @Test
+  void testReplaceUserAddresses_givenAddressOfAnotherUser_shouldReturnStatusBadRequestAndChangeNothing() {
+    UserEntity otherUser = testHelper.saveUser();
+    UserAddressEntity otherAddress = testHelper.saveUserAddress(otherUser);
+    given()
+      .basePath("/api/v1")
+      .contentType(ContentType.JSON)
+      .pathParam("id", userEntity.getId())
+      .body(List.of(new UserAddress(otherAddress.getId(), faker.address().streetAddress(), otherAddress.getCity(),
+        otherAddress.getState(), otherAddress.getZipCode(), userEntity.getId(), null)))
+      .when().put("/users/{id}/addresses")
+      .then()
+      .statusCode(400);
+    given()
+      .basePath("/api/v1")
+      .pathParam("id", userEntity.getId())
+      .when().get("/users/{id}/addresses")
+      .then()
+      .statusCode(200)
+      .body("[0].id", equalTo(addressEntity.getId().intValue()));
+  }
+
+  @Test
+  void testReplaceUserAddresses_givenRandomID_shouldReturnStatusNotFound() {
+    given()
+      .basePath("/api/v1")
+      .contentType(ContentType.JSON)
+      .pathParam("id", faker.number().numberBetween(100000, 200000))
+      .body(List.of())
+      .when().put("/users/{id}/addresses")
+      .then()
+      .statusCode(404);
+  }
 }
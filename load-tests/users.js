@@ -0,0 +1,91 @@
+// k6 load test for the /api/v1/users contract, used to compare the blocking and reactive builds of backend-java.
+//
+//   k6 run -e BASE_URL=http://localhost:3000 load-tests/users.js
+//
+// Arrival rate is open-model (requests keep coming whether or not earlier ones finished), so queueing in front of
+// the connection pool shows up as latency and dropped iterations rather than as a lower request rate.
+import http from "k6/http";
+import { check } from "k6";
+import { Trend } from "k6/metrics";
+
+const BASE_URL = __ENV.BASE_URL || "http://localhost:3000";
+const USERS = `${BASE_URL}/api/v1/users`;
+const JSON_HEADERS = { headers: { "Content-Type": "application/json" } };
+const RATE = Number(__ENV.RATE || 500);
+const SEED_USERS = Number(__ENV.SEED_USERS || 200);
+
+const readLatency = new Trend("read_latency", true);
+const writeLatency = new Trend("write_latency", true);
+
+export const options = {
+  scenarios: {
+    steady: {
+      executor: "constant-arrival-rate",
+      rate: RATE,
+      timeUnit: "1s",
+      duration: __ENV.DURATION || "1m",
+      preAllocatedVUs: 100,
+      maxVUs: 1000,
+    },
+    burst: {
+      executor: "ramping-arrival-rate",
+      startTime: __ENV.DURATION || "1m",
+      startRate: RATE,
+      timeUnit: "1s",
+      preAllocatedVUs: 200,
+      maxVUs: 2000,
+      stages: [
+        { target: RATE * 4, duration: "10s" },
+        { target: RATE * 4, duration: "30s" },
+        { target: RATE, duration: "10s" },
+      ],
+    },
+  },
+  summaryTrendStats: ["avg", "p(50)", "p(95)", "p(99)", "max"],
+  thresholds: {
+    checks: ["rate>0.99"],
+    "http_req_duration{scenario:steady}": ["p(99)<250"],
+  },
+};
+
+export function setup() {
+  const ids = [];
+  for (let i = 0; i < SEED_USERS; i++) {
+    const response = http.post(USERS, JSON.stringify({ name: `load-${i}`, email: `load-${Date.now()}-${i}@example.com` }),
+      JSON_HEADERS);
+    const id = response.json("id");
+    http.post(`${USERS}/${id}/addresses`,
+      JSON.stringify({ street: `${i} Main St`, city: "Victoria", state: "BC", zipCode: "V8V 1A1" }), JSON_HEADERS);
+    ids.push(id);
+  }
+  return { ids };
+}
+
+// Mostly reads, as the API sees in practice: 55% by id, 5% existence checks for a missing id, 20% address lists,
+// 10% pages, 10% creates.
+export default function (data) {
+  const id = data.ids[Math.floor(Math.random() * data.ids.length)];
+  const roll = Math.random();
+  let expected = 200;
+  let response;
+  if (roll < 0.55) {
+    response = http.get(`${USERS}/${id}`, { tags: { name: "GET /users/{id}" } });
+    readLatency.add(response.timings.duration);
+  } else if (roll < 0.6) {
+    response = http.get(`${USERS}/0`, { tags: { name: "GET /users/{id} (missing)" } });
+    readLatency.add(response.timings.duration);
+    expected = 404;
+  } else if (roll < 0.8) {
+    response = http.get(`${USERS}/${id}/addresses`, { tags: { name: "GET /users/{id}/addresses" } });
+    readLatency.add(response.timings.duration);
+  } else if (roll < 0.9) {
+    response = http.get(`${USERS}?after=${id}&limit=50`, { tags: { name: "GET /users" } });
+    readLatency.add(response.timings.duration);
+  } else {
+    response = http.post(USERS, JSON.stringify({ name: "load", email: `load-${__VU}-${__ITER}-${Date.now()}@example.com` }),
+      Object.assign({ tags: { name: "POST /users" } }, JSON_HEADERS));
+    writeLatency.add(response.timings.duration);
+    expected = 201;
+  }
+  check(response, { "status is expected": (r) => r.status === expected });
+}